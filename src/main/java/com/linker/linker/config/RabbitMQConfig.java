@@ -1,10 +1,16 @@
 package com.linker.linker.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,6 +18,9 @@ import org.springframework.amqp.core.Queue;
 
 @Configuration
 public class RabbitMQConfig {
+    public static final String LINK_INVALIDATION_EXCHANGE = "link.invalidation";
+    public static final String TOKEN_REVOCATION_EXCHANGE = "token.revocation";
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -24,11 +33,14 @@ public class RabbitMQConfig {
         return rabbitTemplate;
     }
 
+    //Настройки берем из spring.rabbitmq.listener.simple.*, в том числе потоки консьюмеров:
+    //при spring.threads.virtual.enabled=true слушатели (и отправка писем из них) идут на виртуальных потоках
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                               ConnectionFactory connectionFactory,
                                                                                MessageConverter jsonMessageConverter) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setConnectionFactory(connectionFactory);
+        configurer.configure(factory, connectionFactory);
         factory.setMessageConverter(jsonMessageConverter);
         return factory;
     }
@@ -37,4 +49,41 @@ public class RabbitMQConfig {
     public Queue emailQueue() {
         return new Queue("sendManualChangeMail", true);
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "link.cache.invalidation.transport", havingValue = "rabbit", matchIfMissing = true)
+    public FanoutExchange linkInvalidationExchange() {
+        return new FanoutExchange(LINK_INVALIDATION_EXCHANGE, true, false);
+    }
+
+    //У каждой ноды своя очередь, она удаляется при остановке ноды
+    @Bean
+    @ConditionalOnProperty(name = "link.cache.invalidation.transport", havingValue = "rabbit", matchIfMissing = true)
+    public AnonymousQueue linkInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "link.cache.invalidation.transport", havingValue = "rabbit", matchIfMissing = true)
+    public Binding linkInvalidationBinding(FanoutExchange linkInvalidationExchange, AnonymousQueue linkInvalidationQueue) {
+        return BindingBuilder.bind(linkInvalidationQueue).to(linkInvalidationExchange);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.jwt.revocation.transport", havingValue = "rabbit", matchIfMissing = true)
+    public FanoutExchange tokenRevocationExchange() {
+        return new FanoutExchange(TOKEN_REVOCATION_EXCHANGE, true, false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.jwt.revocation.transport", havingValue = "rabbit", matchIfMissing = true)
+    public AnonymousQueue tokenRevocationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.jwt.revocation.transport", havingValue = "rabbit", matchIfMissing = true)
+    public Binding tokenRevocationBinding(FanoutExchange tokenRevocationExchange, AnonymousQueue tokenRevocationQueue) {
+        return BindingBuilder.bind(tokenRevocationQueue).to(tokenRevocationExchange);
+    }
 }
@@ -1,11 +1,14 @@
 package com.linker.linker.config;
 
 import com.linker.linker.mapper.AuthMapper;
+import com.linker.linker.service.auth.BoundedPasswordEncoder;
 import com.linker.linker.service.auth.JwtService;
 import com.linker.linker.service.auth.filter.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -52,9 +55,14 @@ public class SecurityConfig {
                 .build();
     }
 
+    //Все хеширование паролей (логин, регистрация, смена пароля) идет через ограниченный пул
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity
+    ) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, meterRegistry);
     }
 
     @Bean
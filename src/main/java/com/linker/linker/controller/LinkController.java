@@ -1,31 +1,77 @@
 package com.linker.linker.controller;
 
 import com.linker.linker.dto.request.LinkDtoRequest;
+import com.linker.linker.dto.response.ClickSeriesDto;
+import com.linker.linker.dto.response.ImportProgressDto;
+import com.linker.linker.dto.response.LinkCursorPageDto;
+import com.linker.linker.dto.response.TrendingLinkDto;
+import com.linker.linker.dto.response.VisitorEstimateDto;
 import com.linker.linker.entity.Link;
+import com.linker.linker.exception.BulkValidationException;
+import com.linker.linker.handler.LinkCursor;
 import com.linker.linker.handler.interfaces.OnCreate;
 import com.linker.linker.handler.interfaces.OnUpdate;
 import com.linker.linker.mapper.LinkMapper;
 import com.linker.linker.service.LinkService;
+import com.linker.linker.service.click.ClickGranularity;
+import com.linker.linker.service.click.TrendingTracker;
+import com.linker.linker.service.click.TrendingWindow;
+import com.linker.linker.service.transfer.LinkExportService;
+import com.linker.linker.service.transfer.LinkImport;
+import com.linker.linker.service.transfer.LinkImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/link")
-@RequiredArgsConstructor
 @Validated
 @Tag(name = "Link controller", description = "Работа с ссылками")
 public class LinkController {
     private final LinkMapper linkMapper;
     private final LinkService linkService;
+    private final TrendingTracker trendingTracker;
+    private final LinkImportService linkImportService;
+    private final LinkExportService linkExportService;
+    private final Validator validator;
+    private final int bulkMaxSize;
+
+    public LinkController(LinkMapper linkMapper,
+                          LinkService linkService,
+                          TrendingTracker trendingTracker,
+                          LinkImportService linkImportService,
+                          LinkExportService linkExportService,
+                          Validator validator,
+                          @Value("${link.bulk.max-size:10000}") int bulkMaxSize) {
+        this.linkMapper = linkMapper;
+        this.linkService = linkService;
+        this.trendingTracker = trendingTracker;
+        this.linkImportService = linkImportService;
+        this.linkExportService = linkExportService;
+        this.validator = validator;
+        this.bulkMaxSize = bulkMaxSize;
+    }
 
     /**
      * Создание ссылки
@@ -40,12 +86,100 @@ public class LinkController {
     ) {
         String shortLink = this.linkService.createNewLink(this.linkMapper.toEntity(request));
 
-        String qrCodeUrl = "https://api.qrserver.com/v1/create-qr-code/?size=150x150&data=http://localhost/cc/" + shortLink;
+        return ResponseEntity.ok(createdLink(shortLink));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "link", shortLink,
-                "qrCode", qrCodeUrl
-        ));
+    /**
+     * Массовое создание ссылок
+     * Каждый элемент проверяется по тем же правилам, что и при одиночном создании;
+     * при любой ошибке не создается ни одна ссылка
+     * @param requests - до link.bulk.max-size объектов с данными
+     * @return - сгенерированные ссылки в порядке запроса
+     */
+    @PostMapping("/bulk")
+    @Operation(summary = "Массовое создание ссылок")
+    public ResponseEntity<List<Map<String, String>>> createLinks(@RequestBody List<LinkDtoRequest> requests) {
+        if (requests.isEmpty() || requests.size() > this.bulkMaxSize) {
+            throw new BulkValidationException("Expected from 1 to " + this.bulkMaxSize + " links");
+        }
+
+        List<String> errors = new ArrayList<>();
+        List<Link> links = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i) == null) {
+                errors.add("[" + i + "] Link is required");
+                continue;
+            }
+
+            Set<ConstraintViolation<LinkDtoRequest>> violations = this.validator.validate(requests.get(i), OnCreate.class);
+            for (ConstraintViolation<LinkDtoRequest> violation : violations) {
+                errors.add("[" + i + "] " + violation.getMessage());
+            }
+            links.add(this.linkMapper.toEntity(requests.get(i)));
+        }
+
+        if (!errors.isEmpty()) {
+            throw new BulkValidationException(String.join("; ", errors));
+        }
+
+        List<Map<String, String>> response = this.linkService.createLinks(links).stream()
+                .map(LinkController::createdLink)
+                .toList();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Потоковый импорт ссылок из NDJSON (application/x-ndjson) или CSV (text/csv)
+     * Тело читается построчно, результат по каждой строке приходит NDJSON-ом по мере записи в бд.
+     * Id импорта возвращается в заголовке X-Import-Id, по нему можно смотреть прогресс
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Импорт ссылок из файла")
+    public void importLinks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        LinkImport linkImport = this.linkImportService.start();
+
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("X-Import-Id", linkImport.getId());
+
+        this.linkImportService.importLinks(
+                request.getReader(), request.getContentType().startsWith("text/csv"), response.getWriter(), linkImport
+        );
+    }
+
+    @GetMapping("/import/{importId}")
+    @Operation(summary = "Прогресс импорта ссылок")
+    public ResponseEntity<ImportProgressDto> getImportProgress(@PathVariable String importId) {
+        return this.linkImportService.getProgress(importId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Потоковый экспорт всех ссылок пользователя
+     * @param format "ndjson" или "csv"
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Экспорт всех ссылок")
+    public void exportLinks(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\"links." + (csv ? "csv" : "ndjson") + "\"");
+
+        this.linkExportService.export(csv, response.getWriter());
     }
 
     @PatchMapping("/{id:\\d+}")
@@ -69,4 +203,107 @@ public class LinkController {
 
         return ResponseEntity.ok(this.linkService.getAll(pageable));
     }
+
+    /**
+     * Получение ссылок по курсору (keyset), новые сверху
+     * Для первой страницы передается пустой cursor, для следующих - nextCursor из предыдущего ответа
+     * @param withTotal - посчитать общее число ссылок (дополнительный COUNT)
+     */
+    @GetMapping(value = "/all", params = "cursor")
+    @Operation(summary = "Получение ссылок по курсору")
+    public ResponseEntity<LinkCursorPageDto> getLinksByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        LinkCursor linkCursor = cursor.isEmpty() ? null : LinkCursor.decode(cursor);
+
+        if ((!cursor.isEmpty() && linkCursor == null) || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.linkService.getPage(linkCursor, size, withTotal));
+    }
+
+    /**
+     * Приблизительное число уникальных посетителей (IP + User-Agent) за период
+     * @param from первый день периода, по умолчанию 30 дней назад
+     * @param to последний день периода, по умолчанию сегодня
+     */
+    @GetMapping("/{id:\\d+}/visitors")
+    @Operation(summary = "Уникальные посетители ссылки")
+    public ResponseEntity<VisitorEstimateDto> getVisitors(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate periodEnd = to == null ? LocalDate.now() : to;
+        LocalDate periodStart = from == null ? periodEnd.minusDays(29) : from;
+
+        if (periodStart.isAfter(periodEnd)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.linkService.getVisitors(id, periodStart, periodEnd));
+    }
+
+    /**
+     * График кликов ссылки из предагрегированных корзин.
+     * @param granularity "minute", "hour" или "day"
+     * @param from начало периода, по умолчанию - период по умолчанию для шага (час, сутки, 30 дней) до to
+     * @param to конец периода, по умолчанию сейчас
+     */
+    @GetMapping("/{id:\\d+}/clicks")
+    @Operation(summary = "График кликов ссылки")
+    public ResponseEntity<ClickSeriesDto> getClicks(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        ClickGranularity clickGranularity = ClickGranularity.fromLabel(granularity);
+        if (clickGranularity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LocalDateTime periodEnd = to == null ? LocalDateTime.now() : to;
+        LocalDateTime periodStart = from == null ? periodEnd.minus(clickGranularity.getDefaultRange()) : from;
+
+        if (periodStart.isAfter(periodEnd) || periodStart.plus(clickGranularity.getMaxRange()).isBefore(periodEnd)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.linkService.getClickSeries(id, clickGranularity, periodStart, periodEnd));
+    }
+
+    /**
+     * Самые кликабельные публичные ссылки сервиса за последние 5 минут или час, только для администратора.
+     * Числа приблизительные: считаются в памяти этой ноды по Count-Min Sketch.
+     * @param window "5m" или "1h"
+     * @param limit сколько ссылок вернуть
+     */
+    @GetMapping("/trending")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Трендовые ссылки")
+    public ResponseEntity<List<TrendingLinkDto>> getTrending(
+            @RequestParam(defaultValue = "5m") String window,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        TrendingWindow trendingWindow = TrendingWindow.fromLabel(window);
+
+        if (trendingWindow == null || limit < 1 || limit > this.trendingTracker.getMaxLimit()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.linkService.getTrending(trendingWindow, limit));
+    }
+
+    private static Map<String, String> createdLink(String shortLink) {
+        String qrCodeUrl = "https://api.qrserver.com/v1/create-qr-code/?size=150x150&data=http://localhost/cc/" + shortLink;
+
+        return Map.of(
+                "link", shortLink,
+                "qrCode", qrCodeUrl
+        );
+    }
 }
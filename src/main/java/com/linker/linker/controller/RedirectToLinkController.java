@@ -1,59 +1,128 @@
 package com.linker.linker.controller;
 
-import com.linker.linker.entity.Link;
-import com.linker.linker.entity.utils.Status;
 import com.linker.linker.exception.LinkNotFoundException;
-import com.linker.linker.repository.LinkRepository;
+import com.linker.linker.service.cache.CachedLink;
+import com.linker.linker.service.cache.LinkResolver;
+import com.linker.linker.service.click.ClickTracker;
+import com.linker.linker.service.redirect.PrivateCodeAttemptLimiter;
+import com.linker.linker.service.redirect.PrivateLinkPass;
+import com.linker.linker.service.redirect.RedirectCachePolicy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequiredArgsConstructor
 public class RedirectToLinkController {
-    private final LinkRepository linkRepository;
+    private final LinkResolver linkResolver;
+    private final ClickTracker clickTracker;
+    private final RedirectCachePolicy redirectCachePolicy;
+    private final PrivateLinkPass privateLinkPass;
+    private final PrivateCodeAttemptLimiter privateCodeAttemptLimiter;
 
+    /**
+     * Редирект по короткой ссылке.
+     * Несуществующие коды (в основном перебор сканерами) отдают 404 без исключения и, как правило, без запроса в бд.
+     * Код ответа (301/302/307) и заголовки кэширования берутся из настроек ссылки, см. {@link RedirectCachePolicy}.
+     * Приватная ссылка с действующим пропуском ({@link PrivateLinkPass}) открывается сразу, без формы кода.
+     */
     @GetMapping("/cc/{hash}")
-    public String goToLink(@PathVariable String hash, Model model) {
-        Link link = this.linkRepository.findByHash(hash)
-                .orElseThrow(() -> new LinkNotFoundException("Link not found"));
+    public String goToLink(@PathVariable String hash,
+                           @CookieValue(name = PrivateLinkPass.COOKIE_NAME, required = false) String pass,
+                           Model model,
+                           HttpServletRequest request,
+                           HttpServletResponse response) {
+        CachedLink link = this.linkResolver.resolve(hash).orElse(null);
+
+        if (link == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return "error-404";
+        }
 
-        if (link.getTimeToLeave() != null && link.getTimeToLeave().isBefore(LocalDateTime.now())) {
+        if (link.isExpired(LocalDateTime.now())) {
+            setHeaders(response, RedirectCachePolicy.noStore());
             return "error-400";
         }
 
-        if(link.getStatus() == Status.PRIVATE) {
+        if (link.isPrivate() && !this.privateLinkPass.isValid(link, pass)) {
+            setHeaders(response, RedirectCachePolicy.noStore());
             model.addAttribute("hash", hash);
             return "private-link-form";
         }
 
+        this.clickTracker.track(link, request);
+
+        setHeaders(response, this.redirectCachePolicy.headers(link));
+        //RedirectView берет код ответа из этого атрибута, без него всегда 302
+        request.setAttribute(View.RESPONSE_STATUS_ATTRIBUTE, HttpStatus.valueOf(link.getRedirectType().getStatusCode()));
+
         return "redirect:" + link.getOldUrl();
     }
 
+    /**
+     * Проверка кода приватной ссылки. Ссылка берется через {@link LinkResolver}, как и при редиректе,
+     * после верного кода выдается пропуск, и следующие переходы по ссылке не показывают форму.
+     * Число попыток на пару (hash, ip) ограничено {@link PrivateCodeAttemptLimiter}, сверх лимита - 429
+     * до поиска ссылки.
+     */
     @PostMapping("/cc/{hash}/check")
     public String checkPrivateCode(@PathVariable String hash,
                                    @RequestParam String code,
-                                   RedirectAttributes redirectAttributes) {
-        Link link = linkRepository.findByHash(hash)
-                .orElseThrow(() -> new LinkNotFoundException("Link not found"));
-
-        if (link.getPrivateCode().equals(code)) {
-            return "redirect:" + link.getOldUrl();
+                                   RedirectAttributes redirectAttributes,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) {
+        long retryAfter = this.privateCodeAttemptLimiter.tryAcquire(hash, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            //Секунды с округлением вверх
+            long seconds = TimeUnit.NANOSECONDS.toSeconds(retryAfter + TimeUnit.SECONDS.toNanos(1) - 1);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+            return "error-429";
         }
 
-        if (link.getTimeToLeave() != null && link.getTimeToLeave().isBefore(LocalDateTime.now())) {
+        CachedLink link = this.linkResolver.resolve(hash)
+                .orElseThrow(() -> new LinkNotFoundException("Link not found"));
+
+        if (link.isExpired(LocalDateTime.now())) {
             redirectAttributes.addFlashAttribute("error", "Время действия ссылки истекло");
             return "redirect:/cc/" + hash;
         }
 
+        if (matchesPrivateCode(code, link.getPrivateCode())) {
+            this.clickTracker.track(link, request);
+            setHeaders(response, RedirectCachePolicy.noStore());
+            response.addHeader(HttpHeaders.SET_COOKIE, this.privateLinkPass.issue(link, request.isSecure()).toString());
+            return "redirect:" + link.getOldUrl();
+        }
+
         redirectAttributes.addFlashAttribute("error", "Неверный код доступа");
         return "redirect:/cc/" + hash;
     }
+
+    //Сравнение за постоянное время, чтобы по времени ответа нельзя было подбирать код посимвольно
+    private static boolean matchesPrivateCode(String code, String privateCode) {
+        return privateCode != null && MessageDigest.isEqual(
+                code.getBytes(StandardCharsets.UTF_8), privateCode.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private static void setHeaders(HttpServletResponse response, HttpHeaders headers) {
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    }
 }
@@ -1,6 +1,7 @@
 package com.linker.linker.controller;
 
 import com.linker.linker.dto.request.UserDtoRequest;
+import com.linker.linker.dto.response.UserDtoResponse;
 import com.linker.linker.entity.User;
 import com.linker.linker.mapper.UserMapper;
 import com.linker.linker.service.UserService;
@@ -26,7 +27,7 @@ public class UserController {
 
     @GetMapping
     @Operation(summary = "Получение пользователя")
-    public ResponseEntity<User> getUser() {
+    public ResponseEntity<UserDtoResponse> getUser() {
         return ResponseEntity.ok(this.userService.getUser());
     }
 
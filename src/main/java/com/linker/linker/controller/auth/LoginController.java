@@ -3,14 +3,21 @@ package com.linker.linker.controller.auth;
 import com.linker.linker.dto.auth.AuthResponseDto;
 import com.linker.linker.dto.auth.LoginRequestDto;
 import com.linker.linker.service.auth.AuthService;
+import com.linker.linker.service.auth.AuthenticatedUser;
 import com.linker.linker.service.auth.JwtService;
+import com.linker.linker.service.auth.TokenType;
+import com.linker.linker.service.auth.revocation.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,6 +25,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -33,6 +41,7 @@ public class LoginController {
     private final AuthenticationManager authManager;
     private final AuthService authService;
     private final JwtService jwtService;
+    private final TokenRevocationList tokenRevocationList;
 
     @Value("${security.jwt.access}")
     private Duration accessTokenExpirationTime;
@@ -46,39 +55,94 @@ public class LoginController {
             @Validated @RequestBody LoginRequestDto request,
             BindingResult bindingResult
     ) {
-        Map<String, String> errorsMessage = this.authService.loginValidate(
-                request.getUsername(), request.getPassword(), bindingResult
-        );
-
         if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest().body(errorsMessage);
+            return ResponseEntity.badRequest().body(this.authService.loginValidate(bindingResult));
         }
 
-        Authentication auth = this.authManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
+        //Единственная проверка пароля за логин, BCrypt выполняется в ограниченном пуле.
+        //Если пул переполнен, PasswordHashingOverloadedException уходит в GlobalExceptionHandler (503)
+        Authentication auth;
+        try {
+            auth = this.authManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
+            );
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.badRequest().body(Map.of("username", "User not found or password incorrect"));
+        }
 
         UserDetails user = (UserDetails) auth.getPrincipal();
 
-        String accessToken = this.jwtService.generateToken(user, this.accessTokenExpirationTime.toMillis());
-        String refreshToken = this.jwtService.generateToken(user, this.refreshTokenExpirationTime.toMillis());
+        String accessToken = this.jwtService.generateToken(user, TokenType.ACCESS, this.accessTokenExpirationTime.toMillis());
+        String refreshToken = this.jwtService.generateToken(user, TokenType.REFRESH, this.refreshTokenExpirationTime.toMillis());
 
         return ResponseEntity.ok(new AuthResponseDto(accessToken, refreshToken));
     }
 
+    /**
+     * Обмен refresh токена на новую пару токенов.
+     * Принимается только токен с typ=refresh, access токен обменять нельзя.
+     * Предъявленный refresh токен отзывается, повторно обменять его не получится
+     */
     @PostMapping("/refresh-token")
     @Operation(summary = "Получение refresh token")
     public ResponseEntity<AuthResponseDto> refresh(@RequestBody Map<String, String> payload) {
-        String refreshToken = payload.get("refreshToken");
-        String username = this.jwtService.extractUsername(refreshToken);
-        UserDetails user = this.authService.loadUserByUsername(username);
+        Claims claims = this.verify(payload.get("refreshToken"), TokenType.REFRESH);
+        if (claims == null || this.tokenRevocationList.isRevoked(claims)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        AuthenticatedUser user = this.authService.loadAuthenticatedUser(claims.getSubject());
 
-        if (!this.jwtService.isTokenValid(refreshToken, user)) {
+        //Токены без jti (выпущены до ротации) отозвать нельзя, их обмениваем без отзыва
+        if (claims.getId() != null && !this.tokenRevocationList.revoke(claims)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        String newAccessToken = this.jwtService.generateToken(user, this.accessTokenExpirationTime.toMillis());
+        String newAccessToken = this.jwtService.generateToken(user, TokenType.ACCESS, this.accessTokenExpirationTime.toMillis());
+        String newRefreshToken = this.jwtService.generateToken(user, TokenType.REFRESH, this.refreshTokenExpirationTime.toMillis());
 
-        return ResponseEntity.ok(new AuthResponseDto(newAccessToken, refreshToken));
+        return ResponseEntity.ok(new AuthResponseDto(newAccessToken, newRefreshToken));
+    }
+
+    /**
+     * Выход: отзываем access токен из заголовка и, если передан, refresh токен того же пользователя
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "Выход из системы")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) Map<String, String> payload
+    ) {
+        Claims accessClaims = authorization != null && authorization.startsWith("Bearer ")
+                ? this.verify(authorization.substring(7), TokenType.ACCESS)
+                : null;
+        if (accessClaims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        this.tokenRevocationList.revoke(accessClaims);
+
+        Claims refreshClaims = payload != null ? this.verify(payload.get("refreshToken"), TokenType.REFRESH) : null;
+        if (refreshClaims != null && accessClaims.getSubject().equals(refreshClaims.getSubject())) {
+            this.tokenRevocationList.revoke(refreshClaims);
+        }
+
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * @return claims токена или null, если токен не передан, подделан, истек или другого назначения
+     */
+    private Claims verify(String token, TokenType type) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            Claims claims = this.jwtService.extractClaims(token);
+            return type.matches(claims) ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
 }
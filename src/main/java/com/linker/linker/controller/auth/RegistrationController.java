@@ -6,6 +6,7 @@ import com.linker.linker.entity.User;
 import com.linker.linker.mapper.AuthMapper;
 import com.linker.linker.service.auth.AuthService;
 import com.linker.linker.service.auth.JwtService;
+import com.linker.linker.service.auth.TokenType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -54,8 +55,8 @@ public class RegistrationController {
         User mappedUser = this.authMapper.toEntity(request);
         User user = this.authService.registerUser(mappedUser);
 
-        String accessToken = this.jwtService.generateToken(user, this.accessTokenExpirationTime.toMillis());
-        String refreshToken = this.jwtService.generateToken(user, this.refreshTokenExpirationTime.toMillis());
+        String accessToken = this.jwtService.generateToken(user, TokenType.ACCESS, this.accessTokenExpirationTime.toMillis());
+        String refreshToken = this.jwtService.generateToken(user, TokenType.REFRESH, this.refreshTokenExpirationTime.toMillis());
 
         return ResponseEntity.ok(new AuthResponseDto(accessToken, refreshToken));
     }
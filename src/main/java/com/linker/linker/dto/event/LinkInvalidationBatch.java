@@ -0,0 +1,15 @@
+package com.linker.linker.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkInvalidationBatch {
+    private List<LinkInvalidationEvent> events = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.linker.linker.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkInvalidationEvent {
+    private String hash;
+    private Long version;
+}
@@ -0,0 +1,14 @@
+package com.linker.linker.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocationEvent {
+    private String jti;
+    //Срок действия токена, epoch millis
+    private Long expiresAt;
+}
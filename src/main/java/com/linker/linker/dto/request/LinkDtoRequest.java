@@ -1,19 +1,24 @@
 package com.linker.linker.dto.request;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.linker.linker.entity.utils.RedirectType;
 import com.linker.linker.entity.utils.Status;
 import com.linker.linker.handler.interfaces.OnCreate;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.hibernate.validator.constraints.URL;
 import org.jspecify.annotations.Nullable;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class LinkDtoRequest {
     @NotNull(message = "Old url is required", groups = OnCreate.class)
@@ -30,4 +35,18 @@ public class LinkDtoRequest {
     @Nullable
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSSSSS")
     private LocalDateTime timeToLeave;
+
+    @Nullable
+    @Enumerated(EnumType.STRING)
+    private RedirectType redirectType;
+
+    //Секунды, null - редирект не кэшируется
+    @Nullable
+    @PositiveOrZero(message = "Cache max age must not be negative")
+    @Max(value = 31_536_000, message = "Cache max age must not exceed one year")
+    private Long cacheMaxAge;
+
+    public LinkDtoRequest(String oldUrl, Status status, String privateCode, LocalDateTime timeToLeave) {
+        this(oldUrl, status, privateCode, timeToLeave, null, null);
+    }
 }
@@ -0,0 +1,35 @@
+package com.linker.linker.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Клики ссылки по минутам, часам или дням")
+public class ClickSeriesDto {
+    private Long linkId;
+
+    @Schema(description = "Шаг графика", example = "hour")
+    private String granularity;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    @Schema(description = "Точки графика по возрастанию времени, пустые корзины заполнены нулями")
+    private List<ClickPointDto> points;
+
+    @Data
+    @AllArgsConstructor
+    public static class ClickPointDto {
+        @Schema(description = "Начало корзины со смещением часового пояса сервера, корзины считаются в UTC")
+        private OffsetDateTime time;
+
+        private long clicks;
+    }
+}
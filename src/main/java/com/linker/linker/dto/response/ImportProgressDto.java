@@ -0,0 +1,28 @@
+package com.linker.linker.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Прогресс импорта ссылок")
+public class ImportProgressDto {
+    private String id;
+
+    @Schema(description = "RUNNING, COMPLETED или FAILED")
+    private String status;
+
+    @Schema(description = "Сколько строк прочитано")
+    private long processed;
+
+    private long created;
+
+    private long failed;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
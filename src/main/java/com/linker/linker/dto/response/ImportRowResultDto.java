@@ -0,0 +1,21 @@
+package com.linker.linker.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Результат импорта одной строки файла")
+public class ImportRowResultDto {
+    @Schema(description = "Номер строки в файле, с 1")
+    private long line;
+
+    @Schema(description = "Короткий код созданной ссылки")
+    private String link;
+
+    @Schema(description = "Причина, по которой строка не импортирована")
+    private String error;
+}
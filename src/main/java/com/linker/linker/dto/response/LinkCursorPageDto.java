@@ -0,0 +1,23 @@
+package com.linker.linker.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.linker.linker.entity.Link;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Страница ссылок с курсором на следующую")
+public class LinkCursorPageDto {
+    private List<Link> content;
+
+    @Schema(description = "Курсор следующей страницы, null - страниц больше нет")
+    private String nextCursor;
+
+    @Schema(description = "Всего ссылок, только если запрошено withTotal=true")
+    private Long total;
+}
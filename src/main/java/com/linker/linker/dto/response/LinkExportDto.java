@@ -0,0 +1,32 @@
+package com.linker.linker.dto.response;
+
+import com.linker.linker.entity.utils.Status;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка экспорта ссылок. Создается прямо в JPQL (SELECT new ...), поэтому не попадает в persistence context.
+ */
+@Data
+@AllArgsConstructor
+@Schema(description = "Ссылка в экспорте")
+public class LinkExportDto {
+    private Long id;
+
+    private String oldUrl;
+
+    private String newUrl;
+
+    private Status status;
+
+    private String privateCode;
+
+    private LocalDateTime timeToLeave;
+
+    private LocalDateTime createdAt;
+
+    private long clicks;
+}
@@ -0,0 +1,17 @@
+package com.linker.linker.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Трендовая ссылка")
+public class TrendingLinkDto {
+    private Long linkId;
+
+    private String hash;
+
+    @Schema(description = "Оценка числа кликов в окне (Count-Min Sketch, может быть немного завышена)")
+    private long clicks;
+}
@@ -1,4 +1,24 @@
 package com.linker.linker.dto.response;
 
+import com.linker.linker.entity.utils.Role;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Профиль пользователя. Создается прямо в JPQL (SELECT new ...), ссылки пользователя не загружаются.
+ */
+@Data
+@AllArgsConstructor
+@Schema(description = "Профиль пользователя")
 public class UserDtoResponse {
+    private Long id;
+
+    private String username;
+
+    private String email;
+
+    private String avatar;
+
+    private Role role;
 }
@@ -0,0 +1,30 @@
+package com.linker.linker.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Приблизительное число уникальных посетителей ссылки за период")
+public class VisitorEstimateDto {
+    private Long linkId;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    @Schema(description = "Оценка числа уникальных посетителей")
+    private long estimate;
+
+    @Schema(description = "Относительная стандартная ошибка оценки", example = "0.01625")
+    private double standardError;
+
+    @Schema(description = "Нижняя граница интервала ~95%")
+    private long lowerBound;
+
+    @Schema(description = "Верхняя граница интервала ~95%")
+    private long upperBound;
+}
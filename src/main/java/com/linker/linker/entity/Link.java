@@ -1,11 +1,14 @@
 package com.linker.linker.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.linker.linker.entity.utils.RedirectType;
 import com.linker.linker.entity.utils.Status;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,8 +18,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Link {
+    //Id берется из links_seq пачками по 50, поэтому Hibernate может отправлять вставки batch-ами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "links_seq")
+    @SequenceGenerator(name = "links_seq", sequenceName = "links_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "old_url")
@@ -34,12 +39,50 @@ public class Link {
     @Column(name = "private_code")
     private String privateCode;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "redirect_type")
+    private RedirectType redirectType;
+
+    //Сколько секунд браузер и CDN могут кэшировать редирект, null - не кэшируется
+    @Column(name = "cache_max_age")
+    private Long cacheMaxAge;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     @ToString.Exclude
     @JsonBackReference
     private User user;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+
+    @Version
+    private Long version;
+
+    //Счетчик пишется только через ClickCounter (clicks = clicks + ?), Hibernate его не трогает
+    @Column(name = "clicks", insertable = false, updatable = false)
+    private long clicks;
+
+    //Клики, которые ClickCounter еще не сбросил в бд
+    @Transient
+    @JsonIgnore
+    private long pendingClicks;
+
+    @PrePersist
+    void onCreate() {
+        if (this.createdAt == null) {
+            //Postgres хранит микросекунды, курсор должен совпадать с сохраненным значением
+            this.createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        }
+        if (this.redirectType == null) {
+            this.redirectType = RedirectType.FOUND;
+        }
+    }
+
+    /**
+     * Полное число кликов: сохраненные в бд плюс накопленные в памяти
+     */
+    public long getClicks() {
+        return this.clicks + this.pendingClicks;
+    }
 }
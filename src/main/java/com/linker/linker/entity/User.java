@@ -5,7 +5,10 @@ import com.linker.linker.entity.utils.Role;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -32,11 +35,16 @@ public class User implements UserDetails {
 
     private String avatar;
 
+    //Ссылки грузятся только при обращении к коллекции, пачками для 50 пользователей сразу.
+    //Чтение пользователя (аутентификация, профиль) не зависит от числа его ссылок
     @OneToMany(
             mappedBy = "user",
-            fetch = FetchType.EAGER,
+            fetch = FetchType.LAZY,
             cascade = CascadeType.ALL
     )
+    @BatchSize(size = 50)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JsonManagedReference
     private List<Link> links = new ArrayList<>();
 
@@ -0,0 +1,20 @@
+package com.linker.linker.entity.utils;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Код ответа при редиректе по короткой ссылке
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RedirectType {
+    //Постоянный, браузер может сам идти на oldUrl без нас, если разрешено кэширование
+    PERMANENT(301),
+    //Временный, поведение по умолчанию
+    FOUND(302),
+    //Временный с сохранением метода и тела запроса
+    TEMPORARY(307);
+
+    private final int statusCode;
+}
@@ -0,0 +1,7 @@
+package com.linker.linker.exception;
+
+public class BulkValidationException extends RuntimeException {
+    public BulkValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,36 @@
+package com.linker.linker.handler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Позиция в списке ссылок для keyset-пагинации: (created_at, id) последней отданной ссылки.
+ * Клиенту отдается как непрозрачная base64url-строка.
+ */
+public record LinkCursor(LocalDateTime createdAt, long id) {
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = this.createdAt.toString() + SEPARATOR + this.id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return курсор или null, если строка не является курсором
+     */
+    public static LinkCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+
+            return new LinkCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.linker.linker.handler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченная очередь без блокировок (bounded MPMC queue Дмитрия Вьюкова).
+ * Каждая ячейка хранит номер последовательности, по которому производитель и потребитель
+ * понимают, свободна ячейка или занята, поэтому offer и poll - это один CAS в обычном случае.
+ * Если очередь заполнена, offer сразу возвращает false и ничего не ждет.
+ */
+public class RingBuffer<T> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity размер буфера, округляется вверх до степени двойки
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in [2, 2^30]");
+        }
+
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(T element) {
+        while (true) {
+            long position = this.tail.get();
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.buffer.set(index, element);
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    public T poll() {
+        while (true) {
+            long position = this.head.get();
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    T element = this.buffer.getAndSet(index, null);
+                    this.sequences.set(index, position + this.capacity);
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Забираем из очереди до maxElements элементов
+     * @return сколько элементов передано в consumer
+     */
+    public int drain(Consumer<T> consumer, int maxElements) {
+        int drained = 0;
+        T element;
+        while (drained < maxElements && (element = this.poll()) != null) {
+            consumer.accept(element);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    public int size() {
+        long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, this.capacity));
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+}
@@ -2,28 +2,74 @@ package com.linker.linker.handler;
 
 import org.springframework.stereotype.Service;
 
-import java.math.BigInteger;
-import java.util.UUID;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 
+/**
+ * Генератор коротких кодов ссылок: 12 символов Base62 (~71.5 бит случайности).
+ * Каждый символ - 6 бит из криптостойкого генератора, значения 62 и 63 отбрасываются,
+ * поэтому все 62 символа равновероятны. Случайные байты берутся из буфера пачками,
+ * символы пишутся в заранее выделенный массив, на один код создается только итоговая строка.
+ */
 @Service
 public class UrlHashGenerator {
-    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    public static final int LENGTH = 12;
+
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int RANDOM_POOL_SIZE = 256;
+
+    //Генераторы разбиты по потокам, чтобы потоки не ждали друг друга на одном SecureRandom.
+    //Полосы, а не ThreadLocal: виртуальным потокам не нужно сидировать собственный DRBG
+    private static final Generator[] STRIPES = createStripes();
 
     public static String generateBase62Id() {
-        UUID uuid = UUID.randomUUID();
-        BigInteger number = new BigInteger(uuid.toString().replace("-", ""), 16);
-
-        StringBuilder result = new StringBuilder();
-        while (number.compareTo(BigInteger.ZERO) > 0 && result.length() < 12) {
-            BigInteger[] divmod = number.divideAndRemainder(BigInteger.valueOf(62));
-            result.append(BASE62.charAt(divmod[1].intValue()));
-            number = divmod[0];
+        Generator generator = STRIPES[(int) Thread.currentThread().threadId() & (STRIPES.length - 1)];
+
+        synchronized (generator) {
+            return generator.next();
+        }
+    }
+
+    private static Generator[] createStripes() {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        Generator[] generators = new Generator[stripes];
+        for (int i = 0; i < stripes; i++) {
+            generators[i] = new Generator();
         }
 
-        while (result.length() < 12) {
-            result.append(BASE62.charAt((int) (Math.random() * 62)));
+        return generators;
+    }
+
+    private static class Generator {
+        private final SecureRandom random;
+        private final byte[] pool = new byte[RANDOM_POOL_SIZE];
+        private final char[] buffer = new char[LENGTH];
+        private int position = RANDOM_POOL_SIZE;
+
+        private Generator() {
+            try {
+                //DRBG не упирается в общую блокировку /dev/urandom, как NativePRNG
+                this.random = SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("DRBG SecureRandom is not available", e);
+            }
         }
 
-        return result.reverse().toString();
+        private String next() {
+            int length = 0;
+            while (length < LENGTH) {
+                if (this.position == RANDOM_POOL_SIZE) {
+                    this.random.nextBytes(this.pool);
+                    this.position = 0;
+                }
+
+                int sixBits = this.pool[this.position++] & 0x3F;
+                if (sixBits < BASE62.length) {
+                    this.buffer[length++] = BASE62[sixBits];
+                }
+            }
+
+            return new String(this.buffer);
+        }
     }
 }
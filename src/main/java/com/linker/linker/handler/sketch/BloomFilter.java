@@ -0,0 +1,105 @@
+package com.linker.linker.handler.sketch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный фильтр Блума для строк.
+ * Ответ "нет" - точный, ответ "может быть" ошибается с вероятностью около expectedFpp,
+ * пока число элементов не превышает expectedInsertions.
+ * Биты хранятся в {@link AtomicLongArray}, поэтому put и mightContain работают без блокировок.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+    private final AtomicLong insertions = new AtomicLong();
+
+    public BloomFilter(long expectedInsertions, double expectedFpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (expectedFpp <= 0 || expectedFpp >= 1) {
+            throw new IllegalArgumentException("expectedFpp must be in (0, 1)");
+        }
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(expectedFpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) this.bitSize / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * @return true, если значение изменило хотя бы один бит (т.е. раньше его точно не было)
+     */
+    public boolean put(CharSequence value) {
+        long hash = Hashing.hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean changed = false;
+
+        for (int i = 1; i <= this.hashFunctions; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % this.bitSize;
+            changed |= setBit(index);
+        }
+
+        if (changed) {
+            this.insertions.incrementAndGet();
+        }
+
+        return changed;
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long hash = Hashing.hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= this.hashFunctions; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % this.bitSize;
+            if ((this.bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Ожидаемая вероятность ложноположительного ответа при текущем числе вставок
+     */
+    public double currentFpp() {
+        double fill = -((double) this.hashFunctions * this.insertions.get()) / this.bitSize;
+        return Math.pow(1 - Math.exp(fill), this.hashFunctions);
+    }
+
+    public boolean isSaturated() {
+        return this.insertions.get() > this.expectedInsertions;
+    }
+
+    public long insertions() {
+        return this.insertions.get();
+    }
+
+    public long sizeInBytes() {
+        return this.bitSize / 8;
+    }
+
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = this.bits.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!this.bits.compareAndSet(word, current, current | mask));
+
+        return true;
+    }
+}
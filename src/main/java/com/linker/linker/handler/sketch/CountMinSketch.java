@@ -0,0 +1,75 @@
+package com.linker.linker.handler.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch - приблизительные частоты в фиксированной памяти (depth * width счетчиков).
+ * Оценка никогда не меньше реальной частоты и превышает ее не более чем на ~e/width от общего числа событий
+ * с вероятностью 1 - e^-depth. Счетчики атомарные, add можно вызывать из нескольких потоков.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicLongArray counts;
+
+    /**
+     * @param depth число строк (хеш-функций)
+     * @param width ширина строки, округляется вверх до степени двойки
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 2) {
+            throw new IllegalArgumentException("depth must be positive and width must be at least 2");
+        }
+
+        this.depth = depth;
+        this.width = Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.counts = new AtomicLongArray(this.depth * this.width);
+    }
+
+    public void add(long item, long count) {
+        long hash = Hashing.hash64(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int row = 0; row < this.depth; row++) {
+            this.counts.addAndGet(this.index(row, h1, h2), count);
+        }
+    }
+
+    public long estimate(long item) {
+        long hash = Hashing.hash64(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+
+        for (int row = 0; row < this.depth; row++) {
+            min = Math.min(min, this.counts.get(this.index(row, h1, h2)));
+        }
+
+        return Math.max(0, min);
+    }
+
+    /**
+     * Вычитаем другой скетч той же размерности (нужно для скользящего окна)
+     */
+    public void subtract(CountMinSketch other) {
+        for (int i = 0; i < this.counts.length(); i++) {
+            long value = other.counts.get(i);
+            if (value != 0) {
+                this.counts.addAndGet(i, -value);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0);
+        }
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * this.width + ((h1 + row * h2) & this.mask);
+    }
+}
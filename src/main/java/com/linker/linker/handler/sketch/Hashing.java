@@ -0,0 +1,41 @@
+package com.linker.linker.handler.sketch;
+
+/**
+ * Быстрые некриптографические хеши для вероятностных структур.
+ * Для строк - FNV-1a по символам с финализатором из MurmurHash3 (fmix64),
+ * чтобы младшие и старшие биты были одинаково хорошо перемешаны.
+ */
+public final class Hashing {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    public static long hash64(CharSequence value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return mix64(hash);
+    }
+
+    public static long hash64(long value) {
+        return mix64(value + 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * Финализатор MurmurHash3, каждый бит входа влияет на каждый бит выхода
+     */
+    public static long mix64(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+
+        return value;
+    }
+}
@@ -0,0 +1,127 @@
+package com.linker.linker.handler.sketch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog - приблизительный подсчет уникальных значений в фиксированной памяти:
+ * 2^precision регистров по одному байту, независимо от числа значений.
+ * Относительная ошибка оценки около 1.04 / sqrt(2^precision), для precision = 12 это ~1.6% при 4 КБ.
+ * Обновление регистра - CAS по байту, поэтому add можно вызывать из нескольких потоков без блокировок.
+ */
+public class HyperLogLog {
+    private static final VarHandle REGISTER = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be in [4, 16]");
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * @param hash 64-битный хеш значения, например {@link Hashing#hash64(CharSequence)}
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - this.precision));
+        //Единица в младшем бите ограничивает ранг, если оставшиеся биты нулевые
+        long remaining = (hash << this.precision) | (1L << (this.precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+
+        byte current;
+        do {
+            current = (byte) REGISTER.getVolatile(this.registers, index);
+            if (current >= rank) {
+                return;
+            }
+        } while (!REGISTER.compareAndSet(this.registers, index, current, rank));
+    }
+
+    /**
+     * Объединяем с другим скетчем той же точности, результат - оценка для объединения множеств
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != this.precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision");
+        }
+
+        for (int i = 0; i < this.registers.length; i++) {
+            byte rank = (byte) REGISTER.getVolatile(other.registers, i);
+            byte current;
+            do {
+                current = (byte) REGISTER.getVolatile(this.registers, i);
+                if (current >= rank) {
+                    break;
+                }
+            } while (!REGISTER.compareAndSet(this.registers, i, current, rank));
+        }
+    }
+
+    public long estimate() {
+        int m = this.registers.length;
+        double sum = 0;
+        int zeros = 0;
+
+        for (int i = 0; i < m; i++) {
+            byte rank = (byte) REGISTER.getVolatile(this.registers, i);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+
+        //Для малых значений точнее linear counting
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return относительная стандартная ошибка оценки
+     */
+    public double standardError() {
+        return 1.04 / Math.sqrt(this.registers.length);
+    }
+
+    public int precision() {
+        return this.precision;
+    }
+
+    /**
+     * Компактное представление: первый байт - точность, дальше по байту на регистр
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[this.registers.length + 1];
+        bytes[0] = (byte) this.precision;
+        for (int i = 0; i < this.registers.length; i++) {
+            bytes[i + 1] = (byte) REGISTER.getVolatile(this.registers, i);
+        }
+
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        int precision = bytes[0];
+        if (precision < 4 || precision > 16 || bytes.length != (1 << precision) + 1) {
+            throw new IllegalArgumentException("Malformed HyperLogLog sketch");
+        }
+
+        return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+}
@@ -8,5 +8,6 @@ import org.mapstruct.Mapping;
 @Mapper(componentModel = "spring")
 public interface LinkMapper {
     @Mapping(target = "status", defaultValue = "PUBLIC")
+    @Mapping(target = "redirectType", defaultValue = "FOUND")
     Link toEntity(LinkDtoRequest request);
 }
@@ -1,19 +1,75 @@
 package com.linker.linker.repository;
 
+import com.linker.linker.dto.response.LinkExportDto;
 import com.linker.linker.entity.Link;
-import com.linker.linker.entity.User;
+import com.linker.linker.entity.utils.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LinkRepository extends JpaRepository<Link, Long> {
     @Query(value = "SELECT * FROM links WHERE new_url = :hash", nativeQuery = true)
     Optional<Link> findByHash(String hash);
 
-    Page<Link> findByUser(User user, Pageable pageable);
+    Page<Link> findByUserId(Long userId, Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    /**
+     * Id из списка, у которых ссылка в заданном статусе
+     */
+    @Query("SELECT l.id FROM Link l WHERE l.status = :status AND l.id IN :ids")
+    List<Long> findIdsWithStatus(Status status, Collection<Long> ids);
+
+    /**
+     * Первая страница ссылок пользователя, новые сверху
+     */
+    @Query(value = """
+            SELECT * FROM links
+            WHERE user_id = :userId
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Link> findFirstPage(Long userId, int limit);
+
+    /**
+     * Следующая страница после (createdAt, id) - keyset по индексу (user_id, created_at, id), без OFFSET
+     */
+    @Query(value = """
+            SELECT * FROM links
+            WHERE user_id = :userId AND (created_at, id) < (:createdAt, :id)
+            ORDER BY created_at DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Link> findPageAfter(Long userId, LocalDateTime createdAt, Long id, int limit);
+
+    /**
+     * Все ссылки пользователя для экспорта, курсором по 1000 строк.
+     * Вызывать внутри транзакции и закрывать поток.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.linker.linker.dto.response.LinkExportDto(
+                l.id, l.oldUrl, l.newUrl, l.status, l.privateCode, l.timeToLeave, l.createdAt, l.clicks
+            )
+            FROM Link l
+            WHERE l.user.id = :userId
+            ORDER BY l.id
+            """)
+    Stream<LinkExportDto> streamForExport(Long userId);
 }
@@ -1,6 +1,8 @@
 package com.linker.linker.repository;
 
+import com.linker.linker.dto.response.UserDtoResponse;
 import com.linker.linker.entity.User;
+import com.linker.linker.service.auth.AuthenticatedUser;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -16,6 +18,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    //Проекции без сущности: одна строка users, ничего не попадает в persistence context
+    @Query("""
+            SELECT new com.linker.linker.dto.response.UserDtoResponse(u.id, u.username, u.email, u.avatar, u.role)
+            FROM User u
+            WHERE u.id = :id
+            """)
+    Optional<UserDtoResponse> findProfileById(@Param("id") Long id);
+
+    @Query("""
+            SELECT new com.linker.linker.service.auth.AuthenticatedUser(u.id, u.username, u.role)
+            FROM User u
+            WHERE u.username = :username
+            """)
+    Optional<AuthenticatedUser> findAuthenticatedUserByUsername(@Param("username") String username);
+
     @Modifying
     @Query(value = """
                 INSERT INTO manual_password_change (email, hash, created_at)
@@ -1,36 +1,101 @@
 package com.linker.linker.service;
 
 import com.linker.linker.dto.request.LinkDtoRequest;
+import com.linker.linker.dto.response.ClickSeriesDto;
+import com.linker.linker.dto.response.LinkCursorPageDto;
+import com.linker.linker.dto.response.TrendingLinkDto;
+import com.linker.linker.dto.response.VisitorEstimateDto;
 import com.linker.linker.entity.Link;
+import com.linker.linker.entity.utils.Status;
 import com.linker.linker.entity.User;
 import com.linker.linker.exception.LinkNotFoundException;
-import com.linker.linker.handler.UrlHashGenerator;
+import com.linker.linker.handler.LinkCursor;
+import com.linker.linker.handler.sketch.HyperLogLog;
 import com.linker.linker.repository.LinkRepository;
+import com.linker.linker.repository.UserRepository;
+import com.linker.linker.service.auth.AuthenticatedUser;
+import com.linker.linker.service.cache.LinkCache;
+import com.linker.linker.service.cache.LinkInvalidationBroadcaster;
+import com.linker.linker.service.cache.LinkResolver;
+import com.linker.linker.service.click.ClickCounter;
+import com.linker.linker.service.click.ClickGranularity;
+import com.linker.linker.service.click.ClickRollup;
+import com.linker.linker.service.click.TrendingTracker;
+import com.linker.linker.service.click.TrendingWindow;
+import com.linker.linker.service.click.VisitorCounter;
+import com.linker.linker.service.code.ShortCodeGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.NavigableMap;
 
 @Service
 @RequiredArgsConstructor
 public class LinkService {
     private final LinkRepository linkRepository;
+    private final UserRepository userRepository;
+    private final LinkCache linkCache;
+    private final LinkResolver linkResolver;
+    private final LinkInvalidationBroadcaster linkInvalidationBroadcaster;
+    private final ClickCounter clickCounter;
+    private final VisitorCounter visitorCounter;
+    private final ClickRollup clickRollup;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final TrendingTracker trendingTracker;
 
     public String createNewLink(Link mappedLink) {
-        String newLinkHash = UrlHashGenerator.generateBase62Id();
+        String newLinkHash = this.shortCodeGenerator.next();
 
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         mappedLink.setNewUrl(newLinkHash);
-        mappedLink.setUser(user);
+        mappedLink.setUser(this.userRepository.getReferenceById(user.getId()));
 
         this.linkRepository.save(mappedLink);
+        this.linkResolver.registerCreated(newLinkHash);
+        this.linkInvalidationBroadcaster.publish(newLinkHash, mappedLink.getVersion());
 
         return newLinkHash;
     }
 
+    /**
+     * Массовое создание ссылок: коды раздаются из памяти, вставки уходят batch-ами
+     * по hibernate.jdbc.batch_size в одной транзакции saveAll.
+     * Ссылки регистрируются в фильтре и на других нодах только после коммита.
+     * @return короткие коды в порядке входного списка
+     */
+    public List<String> createLinks(List<Link> mappedLinks) {
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        User owner = this.userRepository.getReferenceById(user.getId());
+
+        for (Link link : mappedLinks) {
+            link.setNewUrl(this.shortCodeGenerator.next());
+            link.setUser(owner);
+        }
+
+        this.linkRepository.saveAll(mappedLinks);
+
+        List<String> hashes = new ArrayList<>(mappedLinks.size());
+        for (Link link : mappedLinks) {
+            this.linkResolver.registerCreated(link.getNewUrl());
+            this.linkInvalidationBroadcaster.publish(link.getNewUrl(), link.getVersion());
+            hashes.add(link.getNewUrl());
+        }
+
+        return hashes;
+    }
+
     public Link update(Long id, LinkDtoRequest request) {
         Link link = this.linkRepository.findById(id)
                 .orElseThrow(() -> new LinkNotFoundException("Link not found"));
@@ -39,13 +104,123 @@ public class LinkService {
         link.setStatus(request.getStatus() == null ? link.getStatus() : request.getStatus());
         link.setTimeToLeave(request.getTimeToLeave());
         link.setPrivateCode(request.getPrivateCode());
+        link.setRedirectType(request.getRedirectType() == null ? link.getRedirectType() : request.getRedirectType());
+        link.setCacheMaxAge(request.getCacheMaxAge());
 
-        return this.linkRepository.save(link);
+        //Flush сразу: конфликт версий проявляется здесь (409), а в рассылку уходит уже новая version
+        Link updated = this.linkRepository.saveAndFlush(link);
+        this.linkCache.invalidate(updated.getNewUrl());
+        this.linkInvalidationBroadcaster.publish(updated.getNewUrl(), updated.getVersion());
+
+        return updated;
+    }
+
+    /**
+     * Самые кликабельные публичные ссылки сервиса по top-K этой ноды.
+     * Приватные ссылки не отдаются, даже если попали в top-K.
+     * @param limit сколько ссылок вернуть, не больше link.trending.top-k
+     */
+    public List<TrendingLinkDto> getTrending(TrendingWindow window, int limit) {
+        List<TrendingLinkDto> top = this.trendingTracker.top(window, this.trendingTracker.getMaxLimit());
+        if (top.isEmpty()) {
+            return top;
+        }
+
+        HashSet<Long> visible = new HashSet<>(this.linkRepository.findIdsWithStatus(
+                Status.PUBLIC, top.stream().map(TrendingLinkDto::getLinkId).toList()
+        ));
+
+        return top.stream()
+                .filter(link -> visible.contains(link.getLinkId()))
+                .limit(limit)
+                .toList();
     }
 
     public Page<Link> getAll(Pageable pageable) {
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        Page<Link> links = this.linkRepository.findByUserId(user.getId(), pageable);
+        //Добавляем клики, которые еще не сброшены в бд
+        links.forEach(link -> link.setPendingClicks(this.clickCounter.pending(link.getId())));
+
+        return links;
+    }
+
+    /**
+     * Страница ссылок пользователя по курсору, новые сверху.
+     * Стоимость не зависит от глубины страницы; COUNT(*) выполняется, только если нужен total.
+     * @param cursor позиция после последней ссылки предыдущей страницы, null - первая страница
+     * @param size размер страницы
+     * @param withTotal посчитать общее число ссылок
+     */
+    public LinkCursorPageDto getPage(LinkCursor cursor, int size, boolean withTotal) {
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        //Берем на одну больше, чтобы понять, есть ли следующая страница
+        List<Link> links = cursor == null
+                ? this.linkRepository.findFirstPage(user.getId(), size + 1)
+                : this.linkRepository.findPageAfter(user.getId(), cursor.createdAt(), cursor.id(), size + 1);
 
-        return this.linkRepository.findByUser(user, pageable);
+        String nextCursor = null;
+        if (links.size() > size) {
+            links = links.subList(0, size);
+            Link last = links.getLast();
+            nextCursor = new LinkCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        links.forEach(link -> link.setPendingClicks(this.clickCounter.pending(link.getId())));
+
+        return new LinkCursorPageDto(links, nextCursor, withTotal ? this.linkRepository.countByUserId(user.getId()) : null);
+    }
+
+    /**
+     * Оценка уникальных посетителей ссылки за период
+     * @param id id ссылки, ссылка должна принадлежать текущему пользователю
+     * @param from первый день, включительно
+     * @param to последний день, включительно
+     * @return оценка и ее границы (~95%, две стандартные ошибки)
+     */
+    public VisitorEstimateDto getVisitors(Long id, LocalDate from, LocalDate to) {
+        Link link = this.getOwnLink(id);
+
+        HyperLogLog sketch = this.visitorCounter.union(link.getId(), from, to);
+        long estimate = sketch.estimate();
+        double standardError = sketch.standardError();
+        long margin = Math.round(estimate * standardError * 2);
+
+        return new VisitorEstimateDto(
+                link.getId(), from, to, estimate, standardError, Math.max(0, estimate - margin), estimate + margin
+        );
+    }
+
+    /**
+     * @param from начало периода, время сервера
+     * @param to конец периода, время сервера
+     * Корзины хранятся в UTC, точки графика отдаются со смещением часового пояса сервера
+     */
+    public ClickSeriesDto getClickSeries(Long id, ClickGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        Link link = this.getOwnLink(id);
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime fromUtc = from.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        LocalDateTime toUtc = to.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+
+        NavigableMap<LocalDateTime, Long> clicks = this.clickRollup.series(link.getId(), granularity, fromUtc, toUtc);
+
+        List<ClickSeriesDto.ClickPointDto> points = new ArrayList<>();
+        for (LocalDateTime time = granularity.truncate(fromUtc); !time.isAfter(toUtc); time = time.plus(1, granularity.getUnit())) {
+            OffsetDateTime pointTime = time.atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toOffsetDateTime();
+            points.add(new ClickSeriesDto.ClickPointDto(pointTime, clicks.getOrDefault(time, 0L)));
+        }
+
+        return new ClickSeriesDto(link.getId(), granularity.getLabel(), from, to, points);
+    }
+
+    private Link getOwnLink(Long id) {
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return this.linkRepository.findById(id)
+                .filter(link -> link.getUser() != null && link.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new LinkNotFoundException("Link not found"));
     }
 }
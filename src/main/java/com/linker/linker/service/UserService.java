@@ -1,7 +1,10 @@
 package com.linker.linker.service;
 
+import com.linker.linker.dto.response.UserDtoResponse;
 import com.linker.linker.entity.User;
+import com.linker.linker.exception.UserNotFoundException;
 import com.linker.linker.repository.UserRepository;
+import com.linker.linker.service.auth.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -18,12 +21,16 @@ import java.util.UUID;
 public class UserService {
     private final UserRepository userRepository;
 
-    public User getUser() {
-        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    public UserDtoResponse getUser() {
+        AuthenticatedUser principal =
+                (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return this.userRepository.findProfileById(principal.getId())
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
     }
 
     public void updateUserProfile(User mappedUser, MultipartFile file) throws IOException {
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        User user = this.loadCurrentUser();
 
         user.setEmail(mappedUser.getEmail() != null ? mappedUser.getEmail() : user.getEmail());
         user.setAvatar(this.saveImageHelper(file));
@@ -31,6 +38,15 @@ public class UserService {
         this.userRepository.save(user);
     }
 
+    //В principal только id, username и роль, профиль загружаем из бд
+    private User loadCurrentUser() {
+        AuthenticatedUser principal =
+                (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return this.userRepository.findById(principal.getId())
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
+
     private String saveImageHelper(MultipartFile file) throws IOException {
         String uploadDir = "uploads/";
         Files.createDirectories(Paths.get(uploadDir));
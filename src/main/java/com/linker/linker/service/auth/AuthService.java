@@ -36,6 +36,14 @@ public class AuthService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
+    /**
+     * Пользователь для выпуска токенов и аутентификации без пароля: id, username и роль одной строкой из users
+     */
+    public AuthenticatedUser loadAuthenticatedUser(String username) throws UsernameNotFoundException {
+        return this.userRepository.findAuthenticatedUserByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+
     public Optional<User> getUserByEmail(String email) {
         return this.userRepository.findByEmail(email);
     }
@@ -79,21 +87,14 @@ public class AuthService implements UserDetailsService {
     }
 
     /**
-     * Проверяет, существуют ли в базе юзер с указанным username,
-     * а также обрабатывает валидационные ошибки из {@link LoginRequestDto} при логине.
+     * Обрабатывает валидационные ошибки из {@link LoginRequestDto} при логине.
+     * Пользователь и пароль здесь не проверяются: это делает AuthenticationManager,
+     * чтобы на один логин приходилась одна проверка BCrypt.
      *
-     * @param username      имя пользователя для проверки
      * @param bindingResult {@link org.springframework.validation.BindingResult} для накопления ошибок
      * @return список сообщений об ошибках, если таковые есть
      */
-    @Transactional(readOnly = true)
-    public Map<String, String> loginValidate(String username, String password, BindingResult bindingResult) {
-        Optional<User> user = this.userRepository.findByUsername(username);
-
-        if (user.isEmpty() || !passwordEncoder.matches(password, user.get().getPassword())) {
-            bindingResult.rejectValue("username", "", "User not found or password incorrect");
-        }
-
+    public Map<String, String> loginValidate(BindingResult bindingResult) {
         return validationHandler(bindingResult);
     }
 
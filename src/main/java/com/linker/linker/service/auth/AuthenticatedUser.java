@@ -0,0 +1,40 @@
+package com.linker.linker.service.auth;
+
+import com.linker.linker.entity.User;
+import com.linker.linker.entity.utils.Role;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Пользователь запроса, собранный из проверенных claims токена (uid, role), без похода в бд.
+ * Это не сущность: если нужны остальные поля пользователя, его надо загрузить по id,
+ * а для связей с ним - брать ссылку через getReferenceById.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements UserDetails {
+    private final Long id;
+    private final String username;
+    private final Role role;
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(this.role.name()));
+    }
+
+    //Пароль в principal не хранится, аутентификация уже пройдена по токену
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
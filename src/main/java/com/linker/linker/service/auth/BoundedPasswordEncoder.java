@@ -0,0 +1,92 @@
+package com.linker.linker.service.auth;
+
+import com.linker.linker.exception.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt на отдельном ограниченном пуле потоков.
+ * Хеширование занимает десятки миллисекунд CPU, поэтому всплеск логинов (подбор паролей)
+ * не должен занимать все ядра и потоки Tomcat, которые обслуживают редиректы.
+ * Одновременно хешируют не больше threads потоков, ждут не больше queue-capacity задач,
+ * остальные запросы сразу получают {@link PasswordHashingOverloadedException} (503).
+ * Метрики: security.password.hashing (время хеширования, тег operation),
+ * security.password.hashing.queue (задач в очереди), security.password.hashing.rejected.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.encodeTimer = Timer.builder("security.password.hashing").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("security.password.hashing").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("security.password.hashing.rejected").register(meterRegistry);
+        Gauge.builder("security.password.hashing.queue", this.executor.getQueue(), BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("security.password.hashing.active", this.executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.submit(this.encodeTimer, () -> this.delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return this.submit(this.matchesTimer, () -> this.delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return this.delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private <T> T submit(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = this.executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            throw new PasswordHashingOverloadedException("Too many authentication requests, try again later");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -1,70 +1,141 @@
 package com.linker.linker.service.auth;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.linker.linker.entity.User;
+import com.linker.linker.entity.utils.Role;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
+/**
+ * Выпуск и проверка JWT.
+ * Ключ подписи и парсер создаются один раз при старте. Проверенные токены кэшируются
+ * по SHA-256 от токена (сам токен в памяти не хранится), запись живет до exp токена,
+ * поэтому повторный запрос с тем же токеном не разбирает и не проверяет его заново.
+ * Токен с другой подписью дает другой digest и проходит полную проверку.
+ * Счетчики кэша доступны в /actuator/metrics под именем cache.* с тегом cache=jwt-claims.
+ */
 @Service
-@RequiredArgsConstructor
 public class JwtService {
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
 
-    @Value("${security.jwt.secret}")
-    private String SECRET_KEY;
+    private final SecretKey signKey;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, Claims> verified;
+
+    public JwtService(@Value("${security.jwt.secret}") String secretKey,
+                      @Value("${security.jwt.cache.maximum-size:10000}") long cacheMaximumSize,
+                      MeterRegistry meterRegistry) {
+        this.signKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(this.signKey)
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(Expiry.creating((ByteBuffer digest, Claims claims) -> untilExpiration(claims)))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.verified, "jwt-claims");
+    }
 
     /**
      * Генерация access и refresh токена
      * @param userDetails - данные пользователя
+     * @param type - назначение токена, пишется в claim typ
      * @param expirationMillis - время жизни токена
-     * @return access token
+     * @return token
      */
-    public String generateToken(UserDetails userDetails, long expirationMillis) {
-        return Jwts.builder()
+    public String generateToken(UserDetails userDetails, TokenType type, long expirationMillis) {
+        JwtBuilder builder = Jwts.builder()
+                .claim(TokenType.CLAIM, type.getValue());
+
+        //id и роль в токене позволяют аутентифицировать запрос без загрузки пользователя
+        if (userDetails instanceof User user) {
+            builder.claim(USER_ID_CLAIM, user.getId()).claim(ROLE_CLAIM, user.getRole().name());
+        } else if (userDetails instanceof AuthenticatedUser user) {
+            builder.claim(USER_ID_CLAIM, user.getId()).claim(ROLE_CLAIM, user.getRole().name());
+        }
+
+        return builder
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationMillis))
-                .signWith(getSignKey(), Jwts.SIG.HS256)
+                .signWith(this.signKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public String extractUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return extractClaims(token).getSubject();
+    }
+
+    /**
+     * Проверяем подпись и срок действия токена, результат берется из кэша, если токен уже проверялся.
+     * Невалидные токены не кэшируются, исключение парсера пробрасывается как раньше
+     * @return claims токена
+     */
+    public Claims extractClaims(String token) {
+        return this.verified.get(digest(token), key -> this.parser.parseSignedClaims(token).getPayload());
+    }
+
+    /**
+     * Пользователь из проверенных claims
+     * @return null, если токен выпущен до появления uid и role в claims
+     */
+    public AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+
+        if (userId == null || role == null) {
+            return null;
+        }
+
+        return new AuthenticatedUser(userId, claims.getSubject(), Role.valueOf(role));
     }
 
+    /**
+     * Подпись и срок действия проверяются в {@link #extractClaims}, здесь остается сверить владельца
+     */
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            String username = extractUsername(token);
-            return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+            return userDetails.getUsername().equals(extractUsername(token));
         } catch (Exception e) {
             return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiration = Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration();
-        return expiration.before(new Date());
+    private static Duration untilExpiration(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Duration.ZERO;
+        }
+
+        long millis = expiration.getTime() - System.currentTimeMillis();
+        return millis > 0 ? Duration.ofMillis(millis) : Duration.ZERO;
     }
 
-    private SecretKey getSignKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
-
-
-
@@ -0,0 +1,27 @@
+package com.linker.linker.service.auth;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Назначение JWT, хранится в claim typ.
+ * Access токен принимается только в Authorization, refresh - только при обмене и выходе.
+ * Токены, выпущенные до появления typ, считаются access
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TokenType {
+    ACCESS("access"),
+    REFRESH("refresh");
+
+    public static final String CLAIM = "typ";
+
+    private final String value;
+
+    public boolean matches(Claims claims) {
+        String type = claims.get(CLAIM, String.class);
+
+        return type == null ? this == ACCESS : this.value.equals(type);
+    }
+}
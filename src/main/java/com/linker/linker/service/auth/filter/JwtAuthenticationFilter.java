@@ -1,6 +1,11 @@
 package com.linker.linker.service.auth.filter;
 
+import com.linker.linker.service.auth.AuthService;
+import com.linker.linker.service.auth.AuthenticatedUser;
 import com.linker.linker.service.auth.JwtService;
+import com.linker.linker.service.auth.TokenType;
+import com.linker.linker.service.auth.revocation.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,8 +13,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,11 +23,13 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final AuthService authService;
+    private final TokenRevocationList tokenRevocationList;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService uds) {
+    public JwtAuthenticationFilter(JwtService jwtService, AuthService authService, TokenRevocationList tokenRevocationList) {
         this.jwtService = jwtService;
-        this.userDetailsService = uds;
+        this.authService = authService;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @Override
@@ -34,7 +39,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final Claims claims;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,20 +47,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        //Подпись и срок действия проверяются при разборе, невалидный токен сюда не дойдет
+        claims = jwtService.extractClaims(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        //Отозванный токен (logout) и refresh токен - запрос идет дальше неаутентифицированным
+        if (TokenType.REFRESH.matches(claims) || tokenRevocationList.isRevoked(claims)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities()
-                        );
+        if (claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthenticatedUser principal = jwtService.toAuthenticatedUser(claims);
 
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            //Токены, выпущенные до появления uid/role, проверяем по-старому через бд
+            if (principal == null) {
+                principal = authService.loadAuthenticatedUser(claims.getSubject());
             }
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(
+                            principal, null, principal.getAuthorities()
+                    );
+
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
@@ -0,0 +1,29 @@
+package com.linker.linker.service.auth.revocation;
+
+import com.linker.linker.dto.event.TokenRevocationEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Замена брокера внутри одного процесса: событие синхронно доставляется всем подписчикам.
+ * Используется в тестах и при запуске одной ноды без RabbitMQ.
+ */
+@Component
+@ConditionalOnProperty(name = "security.jwt.revocation.transport", havingValue = "in-memory")
+public class InMemoryTokenRevocationTransport implements TokenRevocationTransport {
+    private final List<Consumer<TokenRevocationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(TokenRevocationEvent event) {
+        this.listeners.forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<TokenRevocationEvent> listener) {
+        this.listeners.add(listener);
+    }
+}
@@ -0,0 +1,40 @@
+package com.linker.linker.service.auth.revocation;
+
+import com.linker.linker.config.RabbitMQConfig;
+import com.linker.linker.dto.event.TokenRevocationEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Рассылка через fanout exchange: у каждой ноды своя анонимная очередь,
+ * которая удаляется вместе с нодой.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "security.jwt.revocation.transport", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitTokenRevocationTransport implements TokenRevocationTransport {
+    private final RabbitTemplate rabbitTemplate;
+    private final List<Consumer<TokenRevocationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(TokenRevocationEvent event) {
+        this.rabbitTemplate.convertAndSend(RabbitMQConfig.TOKEN_REVOCATION_EXCHANGE, "", event);
+    }
+
+    @Override
+    public void subscribe(Consumer<TokenRevocationEvent> listener) {
+        this.listeners.add(listener);
+    }
+
+    @RabbitListener(queues = "#{tokenRevocationQueue.name}")
+    public void receive(TokenRevocationEvent event) {
+        this.listeners.forEach(listener -> listener.accept(event));
+    }
+}
@@ -0,0 +1,125 @@
+package com.linker.linker.service.auth.revocation;
+
+import com.linker.linker.dto.event.TokenRevocationEvent;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отозванные токены (logout, ротация refresh токена), ключ - jti, значение - exp токена.
+ * Проверка - один get в ConcurrentHashMap без обращения к бд, в памяти только отозванные
+ * и еще не истекшие токены: после exp токен отклоняется парсером, и запись больше не нужна.
+ * Отзыв пишется в revoked_tokens (переживает рестарт) и рассылается остальным нодам.
+ * Если сообщение потерялось, нода подтянет запись из бд при следующем refresh: после стартовой загрузки
+ * читаются только строки с revoked_at новее водяного знака (последний увиденный revoked_at), а не вся таблица,
+ * которая при ротации refresh токенов растет на каждый обмен за последние security.jwt.refresh.
+ * Токены, выпущенные до появления jti, отозвать нельзя - они доживают до своего exp.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+    private static final String INSERT_SQL = "INSERT INTO revoked_tokens (jti, expires_at) VALUES (?, ?)";
+    private static final String SELECT_LIVE_SQL =
+            "SELECT jti, expires_at, revoked_at FROM revoked_tokens WHERE expires_at > ?";
+    private static final String SELECT_SINCE_SQL =
+            "SELECT jti, expires_at, revoked_at FROM revoked_tokens WHERE revoked_at > ? AND expires_at > ?";
+    //revoked_at берется при вставке, а видна строка после коммита, поэтому перечитываем немного назад
+    private static final long WATERMARK_OVERLAP_MILLIS = 10_000;
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM revoked_tokens WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TokenRevocationTransport transport;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    //Время бд, а не ноды: сравнивается только с revoked_at, расхождение часов нод не влияет
+    private Timestamp watermark;
+
+    public TokenRevocationList(JdbcTemplate jdbcTemplate,
+                               TokenRevocationTransport transport,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transport = transport;
+
+        this.transport.subscribe(this::apply);
+        Gauge.builder("security.jwt.revoked", this.revoked, Map::size).register(meterRegistry);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        return claims.getId() != null && this.revoked.containsKey(claims.getId());
+    }
+
+    /**
+     * Отзываем токен. Первичный ключ revoked_tokens делает отзыв атомарным между нодами,
+     * поэтому один refresh токен можно обменять на новую пару только один раз
+     * @param claims проверенные claims токена
+     * @return false, если токен уже был отозван (или не может быть отозван - нет jti)
+     */
+    public boolean revoke(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null || this.revoked.containsKey(jti)) {
+            return false;
+        }
+
+        try {
+            this.jdbcTemplate.update(INSERT_SQL, jti, new Timestamp(expiration.getTime()));
+        } catch (DuplicateKeyException e) {
+            this.revoked.put(jti, expiration.getTime());
+            return false;
+        }
+
+        this.revoked.put(jti, expiration.getTime());
+        try {
+            this.transport.send(new TokenRevocationEvent(jti, expiration.getTime()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to broadcast revocation of token {}", jti, e);
+        }
+
+        return true;
+    }
+
+    /**
+     * Убираем истекшие записи из памяти и бд и подтягиваем отзывы, которые могли не дойти по брокеру.
+     * Первый запуск сразу после старта загружает все живые отзывы, следующие - только новые
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.refresh-interval:1m}")
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        Timestamp nowTimestamp = new Timestamp(now);
+
+        this.revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        this.jdbcTemplate.update(DELETE_EXPIRED_SQL, nowTimestamp);
+
+        RowCallbackHandler load = rs -> {
+            this.revoked.putIfAbsent(rs.getString("jti"), rs.getTimestamp("expires_at").getTime());
+
+            Timestamp revokedAt = rs.getTimestamp("revoked_at");
+            if (this.watermark == null || revokedAt.after(this.watermark)) {
+                this.watermark = revokedAt;
+            }
+        };
+
+        if (this.watermark == null) {
+            this.jdbcTemplate.query(SELECT_LIVE_SQL, load, nowTimestamp);
+        } else {
+            Timestamp since = new Timestamp(this.watermark.getTime() - WATERMARK_OVERLAP_MILLIS);
+            this.jdbcTemplate.query(SELECT_SINCE_SQL, load, since, nowTimestamp);
+        }
+    }
+
+    private void apply(TokenRevocationEvent event) {
+        if (event.getExpiresAt() > System.currentTimeMillis()) {
+            this.revoked.put(event.getJti(), event.getExpiresAt());
+        }
+    }
+}
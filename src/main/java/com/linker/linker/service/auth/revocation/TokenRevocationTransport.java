@@ -0,0 +1,15 @@
+package com.linker.linker.service.auth.revocation;
+
+import com.linker.linker.dto.event.TokenRevocationEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Канал, по которому ноды рассылают друг другу отозванные токены.
+ * Каждое событие доставляется всем нодам, включая отправителя.
+ */
+public interface TokenRevocationTransport {
+    void send(TokenRevocationEvent event);
+
+    void subscribe(Consumer<TokenRevocationEvent> listener);
+}
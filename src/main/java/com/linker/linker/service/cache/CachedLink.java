@@ -0,0 +1,48 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.entity.Link;
+import com.linker.linker.entity.utils.RedirectType;
+import com.linker.linker.entity.utils.Status;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Минимальный снимок ссылки, которого достаточно для редиректа по /cc/{hash}.
+ * Не держит ссылку на {@link com.linker.linker.entity.User} и не привязан к persistence context,
+ * поэтому его можно безопасно хранить в кэше между запросами.
+ */
+@Value
+public class CachedLink {
+    Long id;
+    String hash;
+    String oldUrl;
+    Status status;
+    LocalDateTime timeToLeave;
+    String privateCode;
+    Long version;
+    RedirectType redirectType;
+    Long cacheMaxAge;
+
+    public static CachedLink from(Link link) {
+        return new CachedLink(
+                link.getId(),
+                link.getNewUrl(),
+                link.getOldUrl(),
+                link.getStatus(),
+                link.getTimeToLeave(),
+                link.getPrivateCode(),
+                link.getVersion(),
+                link.getRedirectType() == null ? RedirectType.FOUND : link.getRedirectType(),
+                link.getCacheMaxAge()
+        );
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return this.timeToLeave != null && this.timeToLeave.isBefore(now);
+    }
+
+    public boolean isPrivate() {
+        return this.status == Status.PRIVATE;
+    }
+}
@@ -0,0 +1,30 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.dto.event.LinkInvalidationBatch;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Замена брокера внутри одного процесса: пачка синхронно доставляется всем подписчикам.
+ * Используется в тестах и при запуске одной ноды без RabbitMQ,
+ * несколько "нод" моделируются несколькими подписчиками.
+ */
+@Component
+@ConditionalOnProperty(name = "link.cache.invalidation.transport", havingValue = "in-memory")
+public class InMemoryLinkInvalidationTransport implements LinkInvalidationTransport {
+    private final List<Consumer<LinkInvalidationBatch>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(LinkInvalidationBatch batch) {
+        this.listeners.forEach(listener -> listener.accept(batch));
+    }
+
+    @Override
+    public void subscribe(Consumer<LinkInvalidationBatch> listener) {
+        this.listeners.add(listener);
+    }
+}
@@ -0,0 +1,118 @@
+package com.linker.linker.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.linker.linker.repository.LinkRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальный кэш ссылок для редиректа, ключ - hash (new_url).
+ * Caffeine использует W-TinyLFU, поэтому популярные ссылки не вытесняются разовыми запросами.
+ * Срок жизни ссылки (timeToLeave) и статус PRIVATE хранятся в {@link CachedLink}
+ * и проверяются на каждом запросе, кэш сам по себе ничего не разрешает.
+ * Счетчики hit/miss/eviction доступны в /actuator/metrics под именем cache.* с тегом cache=links.
+ * Трендовые ссылки дополнительно закрепляются (pin) и не вытесняются, пока остаются в тренде.
+ */
+@Component
+public class LinkCache {
+    private final LinkRepository linkRepository;
+    private final Cache<String, CachedLink> cache;
+    private final Map<String, CachedLink> pinned = new ConcurrentHashMap<>();
+
+    public LinkCache(LinkRepository linkRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${link.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${link.cache.ttl:10m}") Duration ttl) {
+        this.linkRepository = linkRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "links");
+        Gauge.builder("link.cache.pinned", this.pinned, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Ищем ссылку сначала в кэше, при промахе - в бд.
+     * Несуществующие ссылки не кэшируются.
+     * @param hash короткий код ссылки
+     * @return снимок ссылки, если она существует
+     */
+    public Optional<CachedLink> find(String hash) {
+        CachedLink pinnedLink = this.pinned.get(hash);
+        if (pinnedLink != null) {
+            return Optional.of(pinnedLink);
+        }
+
+        return Optional.ofNullable(this.cache.get(hash, key -> this.linkRepository.findByHash(key)
+                .map(CachedLink::from)
+                .orElse(null)));
+    }
+
+    /**
+     * Удаляем ссылку из кэша, следующий запрос загрузит актуальные данные из бд
+     * @param hash короткий код ссылки
+     */
+    public void invalidate(String hash) {
+        if (hash != null) {
+            this.cache.invalidate(hash);
+            this.pinned.remove(hash);
+        }
+    }
+
+    /**
+     * Удаляем ссылку из кэша, если закэширована версия старее указанной.
+     * Нужно для событий с других нод: к их приходу кэш мог уже загрузить актуальную версию.
+     * @param hash короткий код ссылки
+     * @param version версия ссылки после изменения
+     */
+    public void invalidateOlderThan(String hash, Long version) {
+        this.cache.asMap().computeIfPresent(hash, (key, cached) -> isUpToDate(cached, version) ? cached : null);
+        this.pinned.computeIfPresent(hash, (key, cached) -> isUpToDate(cached, version) ? cached : null);
+    }
+
+    /**
+     * Закрепляем трендовые ссылки, остальные закрепления снимаем.
+     * Закрепляется только то, что сейчас лежит в кэше: когда запись в Caffeine истечет по ttl,
+     * ссылка открепится на следующем вызове и перечитается из бд, так что устаревшая копия не живет вечно.
+     * @param hashes короткие коды трендовых ссылок
+     */
+    public void pin(Collection<String> hashes) {
+        Set<String> trending = new HashSet<>(hashes);
+
+        for (String hash : trending) {
+            CachedLink link = this.cache.policy().getIfPresentQuietly(hash);
+            if (link == null) {
+                this.pinned.remove(hash);
+                continue;
+            }
+
+            this.pinned.put(hash, link);
+
+            //Если ссылку успели инвалидировать между чтением и закреплением - снимаем закрепление
+            if (this.cache.policy().getIfPresentQuietly(hash) != link) {
+                this.pinned.remove(hash, link);
+            }
+        }
+
+        this.pinned.keySet().retainAll(trending);
+    }
+
+    private static boolean isUpToDate(CachedLink cached, Long version) {
+        return version != null && cached.getVersion() != null && cached.getVersion() >= version;
+    }
+}
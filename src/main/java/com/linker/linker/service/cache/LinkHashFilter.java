@@ -0,0 +1,213 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.handler.sketch.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Фильтр Блума по всем существующим new_url.
+ * Если фильтр говорит "нет" - ссылки точно не существует и в бд можно не ходить.
+ * Пока фильтр не построен (старт приложения), все запросы считаются "может быть".
+ * Строится при старте приложения одним проходом по links (до готовности приложения),
+ * пополняется при создании ссылок и перестраивается в фоне, когда число ссылок превышает расчетную емкость.
+ * Ссылки, созданные на других нодах, приходят рассылкой {@link LinkInvalidationBroadcaster}, которая может теряться.
+ * Поэтому фильтр периодически дочитывает ссылки с created_at новее водяного знака (последний увиденный created_at):
+ * потерянное событие о создании приводит к 404 не дольше link.filter.catch-up-interval + link.cache.negative-ttl.
+ */
+@Slf4j
+@Component
+public class LinkHashFilter {
+    private static final int FETCH_SIZE = 10_000;
+    private static final String SELECT_ALL_SQL = "SELECT new_url, created_at FROM links";
+    private static final String SELECT_SINCE_SQL = "SELECT new_url, created_at FROM links WHERE created_at > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final long catchUpOverlapMillis;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final Counter definiteMisses;
+    private final Counter maybeHits;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+    //Фильтр, который сейчас строится, новые хеши пишем и в него, чтобы не потерять их при подмене
+    private volatile BloomFilter pending;
+    //Последний увиденный created_at, null - еще не было ни одной ссылки
+    private Timestamp watermark;
+
+    public LinkHashFilter(DataSource dataSource,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${link.filter.expected-insertions:1000000}") long expectedInsertions,
+                          @Value("${link.filter.fpp:0.01}") double fpp,
+                          @Value("${link.filter.catch-up-overlap:1m}") Duration catchUpOverlap) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.catchUpOverlapMillis = catchUpOverlap.toMillis();
+
+        this.definiteMisses = Counter.builder("link.filter.lookups")
+                .tag("result", "definite_miss")
+                .register(meterRegistry);
+        this.maybeHits = Counter.builder("link.filter.lookups")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("link.filter.false.positives")
+                .register(meterRegistry);
+
+        Gauge.builder("link.filter.false.positive.rate", this, LinkHashFilter::observedFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("link.filter.expected.fpp", this, f -> f.filter == null ? 0 : f.filter.currentFpp())
+                .register(meterRegistry);
+        Gauge.builder("link.filter.memory", this, f -> f.filter == null ? 0 : f.filter.sizeInBytes())
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        Gauge.builder("link.filter.size", this, f -> f.filter == null ? 0 : f.filter.insertions())
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param hash короткий код ссылки
+     * @return false, только если ссылки с таким кодом точно нет
+     */
+    public boolean mightContain(String hash) {
+        BloomFilter current = this.filter;
+        if (current == null) {
+            return true;
+        }
+
+        if (current.mightContain(hash)) {
+            this.maybeHits.increment();
+            return true;
+        }
+
+        this.definiteMisses.increment();
+        return false;
+    }
+
+    public void put(String hash) {
+        BloomFilter building = this.pending;
+        if (building != null) {
+            building.put(hash);
+        }
+
+        BloomFilter current = this.filter;
+        if (current != null) {
+            current.put(hash);
+
+            if (current.isSaturated()) {
+                this.rebuildAsync();
+            }
+        }
+    }
+
+    /**
+     * Фильтр ответил "может быть", а ссылки в бд нет
+     */
+    public void recordFalsePositive() {
+        if (this.filter != null) {
+            this.falsePositives.increment();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (this.rebuilding.compareAndSet(false, true)) {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Дочитываем ссылки, созданные после водяного знака, - на случай, если событие о создании не дошло.
+     * created_at выставляет нода, создавшая ссылку, а видна строка после коммита,
+     * поэтому перечитываем назад на link.filter.catch-up-overlap (задержка коммита и расхождение часов нод)
+     */
+    @Scheduled(
+            fixedDelayString = "${link.filter.catch-up-interval:30s}",
+            initialDelayString = "${link.filter.catch-up-interval:30s}"
+    )
+    public void catchUp() {
+        if (this.filter == null) {
+            return;
+        }
+
+        Timestamp since = this.since();
+        int[] found = new int[1];
+        this.jdbcTemplate.query(SELECT_SINCE_SQL, rs -> {
+            this.put(rs.getString(1));
+            this.advanceWatermark(rs.getTimestamp(2));
+            found[0]++;
+        }, since);
+
+        log.debug("Link hash filter caught up {} links created after {}", found[0], since);
+    }
+
+    private synchronized Timestamp since() {
+        return this.watermark == null
+                ? new Timestamp(0)
+                : new Timestamp(this.watermark.getTime() - this.catchUpOverlapMillis);
+    }
+
+    private synchronized void advanceWatermark(Timestamp createdAt) {
+        if (this.watermark == null || createdAt.after(this.watermark)) {
+            this.watermark = createdAt;
+        }
+    }
+
+    private void rebuildAsync() {
+        if (this.rebuilding.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            Long count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM links", Long.class);
+            BloomFilter building = new BloomFilter(Math.max(this.expectedInsertions, 2 * (count == null ? 0 : count)), this.fpp);
+            this.pending = building;
+
+            this.transactionTemplate.executeWithoutResult(status ->
+                    this.jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+                        building.put(rs.getString(1));
+                        this.advanceWatermark(rs.getTimestamp(2));
+                    })
+            );
+
+            this.filter = building;
+            log.info("Link hash filter built: {} links, {} bytes", building.insertions(), building.sizeInBytes());
+        } catch (RuntimeException e) {
+            log.warn("Link hash filter rebuild failed, lookups fall through to the database", e);
+        } finally {
+            this.pending = null;
+            this.rebuilding.set(false);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double maybe = this.maybeHits.count();
+        return maybe == 0 ? 0 : this.falsePositives.count() / maybe;
+    }
+}
@@ -0,0 +1,99 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.dto.event.LinkInvalidationBatch;
+import com.linker.linker.dto.event.LinkInvalidationEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Рассылает изменения ссылок (hash + version) остальным нодам и применяет пришедшие от них.
+ * События копятся в течение batch-window и уходят одной пачкой, чтобы массовые изменения
+ * не превращались в поток мелких сообщений. Если сообщение потерялось,
+ * устаревшая запись все равно уйдет из кэша по link.cache.ttl.
+ */
+@Slf4j
+@Component
+public class LinkInvalidationBroadcaster {
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final LinkInvalidationTransport transport;
+    private final LinkResolver linkResolver;
+    private final long batchWindowNanos;
+    private final ConcurrentLinkedQueue<LinkInvalidationEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("link-invalidation").daemon().factory()
+    );
+
+    public LinkInvalidationBroadcaster(LinkInvalidationTransport transport,
+                                       LinkResolver linkResolver,
+                                       @Value("${link.cache.invalidation.batch-window:5ms}") Duration batchWindow) {
+        this.transport = transport;
+        this.linkResolver = linkResolver;
+        this.batchWindowNanos = batchWindow.toNanos();
+
+        this.transport.subscribe(this::apply);
+    }
+
+    /**
+     * Ставим изменение ссылки в очередь на рассылку
+     * @param hash короткий код ссылки
+     * @param version версия ссылки после изменения
+     */
+    public void publish(String hash, Long version) {
+        this.pending.add(new LinkInvalidationEvent(hash, version));
+
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.scheduler.schedule(this::flush, this.batchWindowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        //Сбрасываем флаг до чтения очереди, чтобы событие, добавленное во время отправки, запланировало новую
+        this.flushScheduled.set(false);
+
+        List<LinkInvalidationEvent> events = new ArrayList<>();
+        LinkInvalidationEvent event;
+        while ((event = this.pending.poll()) != null) {
+            events.add(event);
+
+            if (events.size() == MAX_BATCH_SIZE) {
+                this.send(events);
+                events = new ArrayList<>();
+            }
+        }
+
+        if (!events.isEmpty()) {
+            this.send(events);
+        }
+    }
+
+    private void send(List<LinkInvalidationEvent> events) {
+        try {
+            this.transport.send(new LinkInvalidationBatch(events));
+        } catch (RuntimeException e) {
+            log.warn("Failed to broadcast {} link invalidations", events.size(), e);
+        }
+    }
+
+    private void apply(LinkInvalidationBatch batch) {
+        batch.getEvents().forEach(event -> this.linkResolver.applyRemoteChange(event.getHash(), event.getVersion()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.scheduler.shutdown();
+        this.flush();
+    }
+}
@@ -0,0 +1,15 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.dto.event.LinkInvalidationBatch;
+
+import java.util.function.Consumer;
+
+/**
+ * Канал, по которому ноды рассылают друг другу изменения ссылок.
+ * Каждая пачка доставляется всем нодам, включая отправителя.
+ */
+public interface LinkInvalidationTransport {
+    void send(LinkInvalidationBatch batch);
+
+    void subscribe(Consumer<LinkInvalidationBatch> listener);
+}
@@ -0,0 +1,77 @@
+package com.linker.linker.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Поиск ссылки для редиректа: фильтр Блума -> кэш промахов -> {@link LinkCache} -> бд.
+ * Случайные коды, которых точно нет, отсекаются фильтром без запроса в бд,
+ * а повторные промахи, прошедшие фильтр, - кэшем промахов с коротким TTL.
+ */
+@Service
+public class LinkResolver {
+    private final LinkHashFilter linkHashFilter;
+    private final LinkCache linkCache;
+    private final Cache<String, Boolean> misses;
+
+    public LinkResolver(LinkHashFilter linkHashFilter,
+                        LinkCache linkCache,
+                        MeterRegistry meterRegistry,
+                        @Value("${link.cache.negative-maximum-size:100000}") long maximumSize,
+                        @Value("${link.cache.negative-ttl:30s}") Duration ttl) {
+        this.linkHashFilter = linkHashFilter;
+        this.linkCache = linkCache;
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.misses, "link-misses");
+    }
+
+    public Optional<CachedLink> resolve(String hash) {
+        if (!this.linkHashFilter.mightContain(hash)) {
+            return Optional.empty();
+        }
+
+        if (this.misses.getIfPresent(hash) != null) {
+            this.linkHashFilter.recordFalsePositive();
+            return Optional.empty();
+        }
+
+        Optional<CachedLink> link = this.linkCache.find(hash);
+        if (link.isEmpty()) {
+            this.misses.put(hash, Boolean.TRUE);
+            this.linkHashFilter.recordFalsePositive();
+        }
+
+        return link;
+    }
+
+    /**
+     * Регистрируем только что созданную ссылку, чтобы она сразу стала доступна для редиректа
+     * @param hash короткий код ссылки
+     */
+    public void registerCreated(String hash) {
+        this.linkHashFilter.put(hash);
+        this.misses.invalidate(hash);
+    }
+
+    /**
+     * Применяем изменение ссылки, сделанное на другой ноде
+     * @param hash короткий код ссылки
+     * @param version версия ссылки после изменения
+     */
+    public void applyRemoteChange(String hash, Long version) {
+        this.registerCreated(hash);
+        this.linkCache.invalidateOlderThan(hash, version);
+    }
+}
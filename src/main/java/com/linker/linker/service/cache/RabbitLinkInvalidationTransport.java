@@ -0,0 +1,40 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.config.RabbitMQConfig;
+import com.linker.linker.dto.event.LinkInvalidationBatch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Рассылка через fanout exchange: у каждой ноды своя анонимная очередь,
+ * которая удаляется вместе с нодой.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "link.cache.invalidation.transport", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitLinkInvalidationTransport implements LinkInvalidationTransport {
+    private final RabbitTemplate rabbitTemplate;
+    private final List<Consumer<LinkInvalidationBatch>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(LinkInvalidationBatch batch) {
+        this.rabbitTemplate.convertAndSend(RabbitMQConfig.LINK_INVALIDATION_EXCHANGE, "", batch);
+    }
+
+    @Override
+    public void subscribe(Consumer<LinkInvalidationBatch> listener) {
+        this.listeners.add(listener);
+    }
+
+    @RabbitListener(queues = "#{linkInvalidationQueue.name}")
+    public void receive(LinkInvalidationBatch batch) {
+        this.listeners.forEach(listener -> listener.accept(batch));
+    }
+}
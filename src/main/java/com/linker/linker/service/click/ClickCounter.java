@@ -0,0 +1,111 @@
+package com.linker.linker.service.click;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики переходов по ссылкам (links.clicks).
+ * На редиректе увеличивается {@link LongAdder} в памяти - он распределяет инкременты по ячейкам,
+ * поэтому вирусная ссылка не превращается в точку конкуренции ни в памяти, ни в бд.
+ * Раз в link.clicks.counter.flush-interval накопленные приращения уходят в бд одним batch
+ * из UPDATE links SET clicks = clicks + ?. Каждая нода пишет только свои приращения,
+ * поэтому несколько нод не перетирают счетчики друг друга.
+ *
+ * <p>Гарантии сохранности:
+ * <ul>
+ *     <li>при штатной остановке счетчики сбрасываются в бд ({@link #flush()} в {@link PreDestroy});</li>
+ *     <li>при падении процесса (kill -9, OOM) теряются клики за последний интервал сброса, не больше;</li>
+ *     <li>если бд недоступна, приращения остаются в памяти и уходят при следующем успешном сбросе;</li>
+ *     <li>если соединение оборвалось уже после коммита, следующий сброс может посчитать те же клики повторно -
+ *     счетчик приблизительный, точные данные - в link_clicks.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ClickCounter {
+    private static final String UPDATE_SQL = "UPDATE links SET clicks = clicks + ? WHERE id = ?";
+    //Сколько сбросов подряд счетчик может простаивать, прежде чем его уберут из памяти
+    private static final int MAX_IDLE_FLUSHES = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public ClickCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void increment(long linkId) {
+        this.counters.computeIfAbsent(linkId, id -> new Counter()).adder.increment();
+    }
+
+    /**
+     * @return клики, которые еще не записаны в бд
+     */
+    public long pending(long linkId) {
+        Counter counter = this.counters.get(linkId);
+        return counter == null ? 0 : counter.adder.sum() - counter.flushed;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${link.clicks.counter.flush-interval:5s}",
+            initialDelayString = "${link.clicks.counter.flush-interval:5s}"
+    )
+    @PreDestroy
+    public synchronized void flush() {
+        List<Pending> batch = new ArrayList<>();
+
+        this.counters.forEach((linkId, counter) -> {
+            long sum = counter.adder.sum();
+            if (sum > counter.flushed) {
+                counter.idleFlushes = 0;
+                batch.add(new Pending(linkId, counter, sum, false));
+            } else if (++counter.idleFlushes >= MAX_IDLE_FLUSHES && this.counters.remove(linkId, counter)) {
+                //Инкремент мог успеть пройти между проверкой и удалением
+                long residual = counter.adder.sum();
+                if (residual > counter.flushed) {
+                    batch.add(new Pending(linkId, counter, residual, true));
+                }
+            }
+        });
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, pending) -> {
+                ps.setLong(1, pending.sum - pending.counter.flushed);
+                ps.setLong(2, pending.linkId);
+            });
+
+            batch.forEach(pending -> pending.counter.flushed = pending.sum);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush click counters for {} links, will retry", batch.size(), e);
+
+            //Возвращаем в память приращения счетчиков, которые уже успели убрать
+            batch.stream()
+                    .filter(pending -> pending.removed)
+                    .forEach(pending -> this.counters.computeIfAbsent(pending.linkId, id -> new Counter())
+                            .adder.add(pending.sum - pending.counter.flushed));
+        }
+    }
+
+    private static class Counter {
+        private final LongAdder adder = new LongAdder();
+        //Изменяется только внутри flush
+        private volatile long flushed;
+        private int idleFlushes;
+    }
+
+    private record Pending(long linkId, Counter counter, long sum, boolean removed) {
+    }
+}
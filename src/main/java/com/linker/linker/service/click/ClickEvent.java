@@ -0,0 +1,15 @@
+package com.linker.linker.service.click;
+
+import lombok.Value;
+
+/**
+ * Один переход по короткой ссылке.
+ * User-Agent храним только в виде хеша - этого хватает для группировки и не раздувает таблицу.
+ */
+@Value
+public class ClickEvent {
+    long linkId;
+    long clickedAtMillis;
+    String referrer;
+    int userAgentHash;
+}
@@ -0,0 +1,201 @@
+package com.linker.linker.service.click;
+
+import com.linker.linker.handler.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная запись кликов в link_clicks.
+ * Редирект только кладет событие в {@link RingBuffer}, фоновый поток забирает события пачками
+ * и пишет их одним JDBC batch. Если писатель не успевает, клики отбрасываются
+ * по {@link ClickOverflowPolicy}, а не замедляют редирект.
+ * Клики удаленных ссылок пропускаются, а не роняют всю пачку на внешнем ключе.
+ */
+@Slf4j
+@Component
+public class ClickEventWriter implements SmartLifecycle {
+    private static final String INSERT_SQL = """
+                INSERT INTO link_clicks (link_id, clicked_at, referrer, ua_hash)
+                SELECT ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM links WHERE id = ?)
+            """;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RingBuffer<ClickEvent> buffer;
+    private final ClickOverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter skipped;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public ClickEventWriter(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${link.clicks.events.capacity:65536}") int capacity,
+                            @Value("${link.clicks.events.batch-size:500}") int batchSize,
+                            @Value("${link.clicks.events.flush-interval:1s}") Duration flushInterval,
+                            @Value("${link.clicks.events.overflow-policy:drop}") ClickOverflowPolicy overflowPolicy,
+                            @Value("${link.clicks.events.block-timeout:5ms}") Duration blockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+
+        this.dropped = Counter.builder("link.clicks.events.dropped").register(meterRegistry);
+        this.written = Counter.builder("link.clicks.events.written").register(meterRegistry);
+        this.failed = Counter.builder("link.clicks.events.failed").register(meterRegistry);
+        this.skipped = Counter.builder("link.clicks.events.skipped").register(meterRegistry);
+        Gauge.builder("link.clicks.events.queued", this.buffer, RingBuffer::size).register(meterRegistry);
+    }
+
+    /**
+     * Кладем клик в буфер, не блокируясь (или блокируясь не дольше block-timeout для BLOCK)
+     * @return false, если клик пришлось отбросить
+     */
+    public boolean enqueue(ClickEvent event) {
+        if (this.buffer.offer(event)) {
+            return true;
+        }
+
+        if (this.overflowPolicy == ClickOverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + this.blockTimeoutNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (this.buffer.offer(event)) {
+                    return true;
+                }
+            }
+        }
+
+        this.dropped.increment();
+        return false;
+    }
+
+    private void runWorker() {
+        List<ClickEvent> batch = new ArrayList<>(this.batchSize);
+        long batchStartedAt = 0;
+
+        while (this.running) {
+            if (batch.isEmpty()) {
+                batchStartedAt = System.nanoTime();
+            }
+
+            this.buffer.drain(batch::add, this.batchSize - batch.size());
+
+            if (batch.size() >= this.batchSize
+                    || (!batch.isEmpty() && System.nanoTime() - batchStartedAt >= this.flushIntervalNanos)) {
+                this.write(batch);
+                batch.clear();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        //Дописываем все, что осталось в буфере на момент остановки
+        do {
+            this.write(batch);
+            batch.clear();
+        } while (this.buffer.drain(batch::add, this.batchSize) > 0);
+    }
+
+    void write(List<ClickEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int[][] counts = this.jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+            this.count(Arrays.stream(counts).flatMapToInt(Arrays::stream).sum(), batch.size());
+        } catch (RuntimeException e) {
+            //Ссылку удалили между проверкой и вставкой: пишем пачку по одной строке, чтобы потерялась только эта строка
+            log.warn("Failed to write {} click events as a batch, retrying row by row", batch.size(), e);
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(ClickEvent event) {
+        try {
+            this.count(this.jdbcTemplate.update(INSERT_SQL, ps -> this.bind(ps, event)), 1);
+        } catch (RuntimeException e) {
+            this.failed.increment();
+            log.warn("Failed to write click event for link {}", event.getLinkId(), e);
+        }
+    }
+
+    private void bind(PreparedStatement ps, ClickEvent event) throws SQLException {
+        ps.setLong(1, event.getLinkId());
+        ps.setTimestamp(2, new Timestamp(event.getClickedAtMillis()));
+        if (event.getReferrer() == null) {
+            ps.setNull(3, Types.VARCHAR);
+        } else {
+            ps.setString(3, event.getReferrer());
+        }
+        ps.setInt(4, event.getUserAgentHash());
+        ps.setLong(5, event.getLinkId());
+    }
+
+    private void count(int inserted, int total) {
+        this.written.increment(inserted);
+        this.skipped.increment(total - inserted);
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+        this.worker = Thread.ofPlatform()
+                .name("click-event-writer")
+                .daemon()
+                .start(this::runWorker);
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+
+        if (this.worker != null) {
+            LockSupport.unpark(this.worker);
+            try {
+                this.worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    //Останавливаемся после веб-сервера, чтобы дописать клики последних запросов
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
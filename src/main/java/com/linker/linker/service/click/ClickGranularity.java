@@ -0,0 +1,44 @@
+package com.linker.linker.service.click;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Шаг агрегации кликов и таблица, в которой хранятся агрегаты этого шага
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ClickGranularity {
+    MINUTE("minute", "link_clicks_minute", ChronoUnit.MINUTES, Duration.ofHours(1), Duration.ofDays(1)),
+    HOUR("hour", "link_clicks_hour", ChronoUnit.HOURS, Duration.ofDays(1), Duration.ofDays(31)),
+    DAY("day", "link_clicks_day", ChronoUnit.DAYS, Duration.ofDays(30), Duration.ofDays(731));
+
+    private final String label;
+    private final String table;
+    private final ChronoUnit unit;
+    //Период графика по умолчанию и максимальный период одного запроса
+    private final Duration defaultRange;
+    private final Duration maxRange;
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(this.unit);
+    }
+
+    /**
+     * @param label "minute", "hour" или "day"
+     * @return шаг или null, если такого нет
+     */
+    public static ClickGranularity fromLabel(String label) {
+        for (ClickGranularity granularity : values()) {
+            if (granularity.label.equalsIgnoreCase(label)) {
+                return granularity;
+            }
+        }
+
+        return null;
+    }
+}
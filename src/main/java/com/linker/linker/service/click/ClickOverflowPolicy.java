@@ -0,0 +1,15 @@
+package com.linker.linker.service.click;
+
+/**
+ * Что делать с кликом, если буфер записи заполнен
+ */
+public enum ClickOverflowPolicy {
+    /**
+     * Сразу отбросить клик, редирект не ждет ни при каких условиях
+     */
+    DROP,
+    /**
+     * Подождать освобождения места не дольше block-timeout, затем отбросить
+     */
+    BLOCK
+}
@@ -0,0 +1,217 @@
+package com.linker.linker.service.click;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Агрегаты кликов по минутам, часам и дням (link_clicks_minute / _hour / _day) для графиков.
+ * Клики складываются в минутные корзины в памяти, раз в link.clicks.rollup.flush-interval
+ * приращения одной транзакцией прибавляются к минутным агрегатам и тут же к часовым и дневным,
+ * поэтому графикам не нужен GROUP BY по сырым событиям и все три уровня всегда согласованы.
+ * Сырые события (link_clicks) и минутные агрегаты хранятся ограниченное время, часовые и дневные - бессрочно.
+ * Начала корзин - в UTC: при переводе часов назад локальный час повторяется, и в локальном времени
+ * клики двух разных часов попали бы в одну корзину. В часовой пояс время переводится только при чтении.
+ */
+@Slf4j
+@Component
+public class ClickRollup {
+    private static final Comparator<BucketKey> BUCKET_ORDER =
+            Comparator.comparingLong(BucketKey::linkId).thenComparing(BucketKey::bucketStart);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration rawRetention;
+    private final Duration minuteRetention;
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public ClickRollup(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${link.clicks.retention.raw:7d}") Duration rawRetention,
+                       @Value("${link.clicks.retention.minute:2d}") Duration minuteRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rawRetention = rawRetention;
+        this.minuteRetention = minuteRetention;
+    }
+
+    public void add(long linkId, long clickedAtMillis) {
+        LocalDateTime minute = LocalDateTime.ofInstant(Instant.ofEpochMilli(clickedAtMillis), ZoneOffset.UTC)
+                .truncatedTo(ChronoUnit.MINUTES);
+
+        this.buckets.computeIfAbsent(new BucketKey(linkId, minute), key -> new Bucket()).adder.increment();
+    }
+
+    /**
+     * Клики ссылки по шагам, включая еще не сброшенные в бд
+     * @param from начало периода в UTC, включительно
+     * @param to конец периода в UTC, включительно
+     * @return начало корзины в UTC -> число кликов, только непустые корзины
+     */
+    public NavigableMap<LocalDateTime, Long> series(long linkId, ClickGranularity granularity,
+                                                    LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = granularity.truncate(from);
+        NavigableMap<LocalDateTime, Long> series = new TreeMap<>();
+
+        this.jdbcTemplate.query(
+                "SELECT bucket_start, clicks FROM " + granularity.getTable()
+                        + " WHERE link_id = ? AND bucket_start BETWEEN ? AND ?",
+                rs -> {
+                    series.merge(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), Long::sum);
+                },
+                linkId, Timestamp.valueOf(start), Timestamp.valueOf(to));
+
+        this.buckets.forEach((key, bucket) -> {
+            LocalDateTime bucketStart = granularity.truncate(key.bucketStart());
+            long pending = bucket.adder.sum() - bucket.flushed;
+            if (key.linkId() == linkId && pending > 0 && !bucketStart.isBefore(start) && !bucketStart.isAfter(to)) {
+                series.merge(bucketStart, pending, Long::sum);
+            }
+        });
+
+        return series;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${link.clicks.rollup.flush-interval:10s}",
+            initialDelayString = "${link.clicks.rollup.flush-interval:10s}"
+    )
+    @PreDestroy
+    public synchronized void flush() {
+        //В закрытые минуты клики уже не приходят, их корзины после записи убираем из памяти
+        LocalDateTime closedBefore = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES).minusMinutes(1);
+        List<Pending> batch = new ArrayList<>();
+
+        this.buckets.forEach((key, bucket) -> {
+            long sum = bucket.adder.sum();
+            if (sum > bucket.flushed) {
+                batch.add(new Pending(key, bucket, sum, false));
+            } else if (key.bucketStart().isBefore(closedBefore) && this.buckets.remove(key, bucket)) {
+                long residual = bucket.adder.sum();
+                if (residual > bucket.flushed) {
+                    batch.add(new Pending(key, bucket, residual, true));
+                }
+            }
+        });
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<ClickGranularity, Map<BucketKey, Long>> deltas = new EnumMap<>(ClickGranularity.class);
+        for (ClickGranularity granularity : ClickGranularity.values()) {
+            //Одинаковый порядок строк на всех нодах, чтобы параллельные сбросы не ловили deadlock
+            Map<BucketKey, Long> rows = new TreeMap<>(BUCKET_ORDER);
+            batch.forEach(pending -> rows.merge(
+                    new BucketKey(pending.key().linkId(), granularity.truncate(pending.key().bucketStart())),
+                    pending.sum() - pending.bucket().flushed,
+                    Long::sum
+            ));
+            deltas.put(granularity, rows);
+        }
+
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::upsert));
+
+            batch.forEach(pending -> pending.bucket().flushed = pending.sum());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush click rollups for {} buckets, will retry", batch.size(), e);
+
+            batch.stream()
+                    .filter(Pending::removed)
+                    .forEach(pending -> this.buckets.computeIfAbsent(pending.key(), key -> new Bucket())
+                            .adder.add(pending.sum() - pending.bucket().flushed));
+        }
+    }
+
+    /**
+     * Удаляем сырые события и минутные агрегаты старше срока хранения
+     */
+    @Scheduled(
+            fixedDelayString = "${link.clicks.retention.cleanup-interval:1h}",
+            initialDelayString = "${link.clicks.retention.cleanup-interval:1h}"
+    )
+    public void purgeExpired() {
+        //Сырые события пишутся по Timestamp из epoch millis, корзины - в UTC
+        int rawDeleted = this.jdbcTemplate.update(
+                "DELETE FROM link_clicks WHERE clicked_at < ?", Timestamp.valueOf(LocalDateTime.now().minus(this.rawRetention))
+        );
+        int minutesDeleted = this.jdbcTemplate.update(
+                "DELETE FROM link_clicks_minute WHERE bucket_start < ?",
+                Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC).minus(this.minuteRetention))
+        );
+
+        log.info("Purged {} raw click events and {} minute rollups", rawDeleted, minutesDeleted);
+    }
+
+    /**
+     * Прибавляем приращения к существующим корзинам, недостающие создаем.
+     * Корзины удаленных ссылок пропускаются. Если другая нода успела создать ту же корзину,
+     * транзакция откатится и приращения уйдут при следующем сбросе.
+     */
+    private void upsert(ClickGranularity granularity, Map<BucketKey, Long> rows) {
+        List<Map.Entry<BucketKey, Long>> entries = new ArrayList<>(rows.entrySet());
+
+        int[] updated = this.jdbcTemplate.batchUpdate(
+                "UPDATE " + granularity.getTable() + " SET clicks = clicks + ? WHERE link_id = ? AND bucket_start = ?",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setLong(1, entry.getValue());
+                    ps.setLong(2, entry.getKey().linkId());
+                    ps.setTimestamp(3, Timestamp.valueOf(entry.getKey().bucketStart()));
+                })[0];
+
+        List<Map.Entry<BucketKey, Long>> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(entries.get(i));
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO " + granularity.getTable() + " (link_id, bucket_start, clicks)"
+                        + " SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM links WHERE id = ?)",
+                missing, missing.size(), (ps, entry) -> {
+                    ps.setLong(1, entry.getKey().linkId());
+                    ps.setTimestamp(2, Timestamp.valueOf(entry.getKey().bucketStart()));
+                    ps.setLong(3, entry.getValue());
+                    ps.setLong(4, entry.getKey().linkId());
+                });
+    }
+
+    private static class Bucket {
+        private final LongAdder adder = new LongAdder();
+        //Изменяется только внутри flush
+        private volatile long flushed;
+    }
+
+    private record BucketKey(long linkId, LocalDateTime bucketStart) {
+    }
+
+    private record Pending(BucketKey key, Bucket bucket, long sum, boolean removed) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.linker.linker.service.click;
+
+import com.linker.linker.handler.sketch.Hashing;
+import com.linker.linker.service.cache.CachedLink;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+/**
+ * Точка учета переходов по ссылкам.
+ * Вызывается на каждом редиректе, поэтому здесь нет ни запросов в бд, ни блокировок.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClickTracker {
+    private static final int MAX_REFERRER_LENGTH = 512;
+
+    private final ClickEventWriter clickEventWriter;
+    private final ClickCounter clickCounter;
+    private final VisitorCounter visitorCounter;
+    private final TrendingTracker trendingTracker;
+    private final ClickRollup clickRollup;
+
+    public void track(CachedLink link, HttpServletRequest request) {
+        this.track(
+                link,
+                request.getRemoteAddr(),
+                request.getHeader(HttpHeaders.USER_AGENT),
+                request.getHeader(HttpHeaders.REFERER)
+        );
+    }
+
+    /**
+     * Учет перехода без servlet-запроса, для {@link com.linker.linker.service.redirect.RedirectServer}
+     */
+    public void track(CachedLink link, String remoteAddress, String userAgent, String referrer) {
+        long now = System.currentTimeMillis();
+
+        this.clickCounter.increment(link.getId());
+        this.trendingTracker.record(link.getId(), link.getHash());
+        this.clickRollup.add(link.getId(), now);
+
+        this.visitorCounter.add(link.getId(), visitorFingerprint(remoteAddress, userAgent));
+
+        this.clickEventWriter.enqueue(new ClickEvent(
+                link.getId(),
+                now,
+                referrer == null || referrer.length() <= MAX_REFERRER_LENGTH ? referrer : referrer.substring(0, MAX_REFERRER_LENGTH),
+                userAgent == null ? 0 : (int) Hashing.hash64(userAgent)
+        ));
+    }
+
+    /**
+     * Отпечаток посетителя: IP-адрес + User-Agent, без склейки строк
+     */
+    private static long visitorFingerprint(String remoteAddress, String userAgent) {
+        long hash = remoteAddress == null ? 0 : Hashing.hash64(remoteAddress);
+        if (userAgent != null) {
+            hash = hash * 31 + Hashing.hash64(userAgent);
+        }
+
+        return Hashing.mix64(hash);
+    }
+}
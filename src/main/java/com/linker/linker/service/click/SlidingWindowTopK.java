@@ -0,0 +1,156 @@
+package com.linker.linker.service.click;
+
+import com.linker.linker.dto.response.TrendingLinkDto;
+import com.linker.linker.handler.sketch.CountMinSketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Самые частые ссылки в скользящем окне.
+ * Частоты считает {@link CountMinSketch}: по одному скетчу на слот плюс суммарный скетч окна,
+ * из которого при сдвиге окна вычитается выброшенный слот. Кандидаты в top-K хранятся
+ * в ограниченном наборе, вытеснение - по минимальной оценке (min-heap).
+ * Клик по ссылке, которая уже в наборе или заведомо ниже порога, обходится без блокировок.
+ * Клики, пришедшие ровно в момент сдвига окна, могут попасть в очищаемый слот - для трендов это допустимо.
+ */
+class SlidingWindowTopK {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 2048;
+
+    private final long slotMillis;
+    private final CountMinSketch[] slots;
+    private final CountMinSketch window = new CountMinSketch(DEPTH, WIDTH);
+    private final int capacity;
+    private final Map<Long, String> candidates = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile long currentSlot;
+    //Минимальная оценка среди кандидатов, пока набор заполнен; ссылки не выше порога в набор не попадут
+    private volatile long threshold;
+
+    SlidingWindowTopK(TrendingWindow trendingWindow, int capacity, long nowMillis) {
+        this.slotMillis = trendingWindow.getSlotLength().toMillis();
+        this.slots = new CountMinSketch[trendingWindow.getSlots()];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = new CountMinSketch(DEPTH, WIDTH);
+        }
+        this.capacity = capacity;
+        this.currentSlot = nowMillis / this.slotMillis;
+    }
+
+    void record(long linkId, String hash, long nowMillis) {
+        this.advance(nowMillis);
+
+        this.slots[(int) (this.currentSlot % this.slots.length)].add(linkId, 1);
+        this.window.add(linkId, 1);
+
+        if (this.candidates.containsKey(linkId)) {
+            return;
+        }
+
+        long estimate = this.window.estimate(linkId);
+        if (this.candidates.size() >= this.capacity && estimate <= this.threshold) {
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            this.admit(linkId, hash, estimate);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return до limit ссылок по убыванию оценки числа кликов в окне
+     */
+    List<TrendingLinkDto> top(int limit, long nowMillis) {
+        this.advance(nowMillis);
+
+        List<TrendingLinkDto> top = new ArrayList<>(this.candidates.size());
+        this.candidates.forEach((linkId, hash) -> {
+            long estimate = this.window.estimate(linkId);
+            if (estimate > 0) {
+                top.add(new TrendingLinkDto(linkId, hash, estimate));
+            }
+        });
+        top.sort(Comparator.comparingLong(TrendingLinkDto::getClicks).reversed());
+
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    private void admit(long linkId, String hash, long estimate) {
+        if (this.candidates.containsKey(linkId)) {
+            return;
+        }
+
+        if (this.candidates.size() < this.capacity) {
+            this.candidates.put(linkId, hash);
+            if (this.candidates.size() == this.capacity) {
+                this.threshold = this.scoredCandidates().peek().estimate();
+            }
+            return;
+        }
+
+        PriorityQueue<Scored> heap = this.scoredCandidates();
+        Scored min = heap.peek();
+        if (estimate <= min.estimate()) {
+            this.threshold = min.estimate();
+            return;
+        }
+
+        heap.poll();
+        this.candidates.remove(min.linkId());
+        this.candidates.put(linkId, hash);
+        heap.add(new Scored(linkId, estimate));
+        this.threshold = heap.peek().estimate();
+    }
+
+    private void advance(long nowMillis) {
+        long slot = nowMillis / this.slotMillis;
+        if (slot <= this.currentSlot) {
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            if (slot - this.currentSlot >= this.slots.length) {
+                //Окно целиком устарело
+                for (CountMinSketch sketch : this.slots) {
+                    sketch.clear();
+                }
+                this.window.clear();
+                this.currentSlot = slot;
+            }
+
+            while (this.currentSlot < slot) {
+                CountMinSketch expired = this.slots[(int) ((this.currentSlot + 1) % this.slots.length)];
+                this.window.subtract(expired);
+                expired.clear();
+                this.currentSlot++;
+            }
+
+            //Ссылки без кликов в новом окне освобождают место
+            this.candidates.keySet().removeIf(linkId -> this.window.estimate(linkId) == 0);
+            this.threshold = this.candidates.size() < this.capacity ? 0 : this.scoredCandidates().peek().estimate();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private PriorityQueue<Scored> scoredCandidates() {
+        PriorityQueue<Scored> heap = new PriorityQueue<>(this.capacity + 1, Comparator.comparingLong(Scored::estimate));
+        this.candidates.keySet().forEach(linkId -> heap.add(new Scored(linkId, this.window.estimate(linkId))));
+
+        return heap;
+    }
+
+    private record Scored(long linkId, long estimate) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.linker.linker.service.click;
+
+import com.linker.linker.dto.response.TrendingLinkDto;
+import com.linker.linker.service.cache.LinkCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Трендовые ссылки за 5 минут и за час, считаются в памяти по потоку редиректов.
+ * Самые горячие ссылки за 5 минут периодически закрепляются в {@link LinkCache}.
+ */
+@Component
+public class TrendingTracker {
+    private final LinkCache linkCache;
+    private final int maxLimit;
+    private final Map<TrendingWindow, SlidingWindowTopK> windows = new EnumMap<>(TrendingWindow.class);
+
+    public TrendingTracker(LinkCache linkCache,
+                           @Value("${link.trending.top-k:20}") int maxLimit) {
+        this.linkCache = linkCache;
+        this.maxLimit = maxLimit;
+
+        long now = System.currentTimeMillis();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            //Держим вдвое больше кандидатов, чем отдаем, чтобы ссылки у границы top-K не выпадали из-за погрешности
+            this.windows.put(window, new SlidingWindowTopK(window, maxLimit * 2, now));
+        }
+    }
+
+    public void record(long linkId, String hash) {
+        long now = System.currentTimeMillis();
+        this.windows.values().forEach(window -> window.record(linkId, hash, now));
+    }
+
+    /**
+     * @param limit сколько ссылок вернуть, не больше link.trending.top-k
+     */
+    public List<TrendingLinkDto> top(TrendingWindow window, int limit) {
+        return this.windows.get(window).top(Math.min(limit, this.maxLimit), System.currentTimeMillis());
+    }
+
+    public int getMaxLimit() {
+        return this.maxLimit;
+    }
+
+    @Scheduled(fixedDelayString = "${link.trending.pin-interval:30s}")
+    public void pinTrending() {
+        this.linkCache.pin(this.top(TrendingWindow.FIVE_MINUTES, this.maxLimit).stream()
+                .map(TrendingLinkDto::getHash)
+                .toList());
+    }
+}
@@ -0,0 +1,34 @@
+package com.linker.linker.service.click;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Скользящие окна для трендов: окно разбито на слоты, при сдвиге выбрасывается самый старый слот
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TrendingWindow {
+    FIVE_MINUTES("5m", Duration.ofMinutes(1), 5),
+    ONE_HOUR("1h", Duration.ofMinutes(5), 12);
+
+    private final String label;
+    private final Duration slotLength;
+    private final int slots;
+
+    /**
+     * @param label "5m" или "1h"
+     * @return окно или null, если такого нет
+     */
+    public static TrendingWindow fromLabel(String label) {
+        for (TrendingWindow window : values()) {
+            if (window.label.equalsIgnoreCase(label)) {
+                return window;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.linker.linker.service.click;
+
+import com.linker.linker.handler.sketch.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Уникальные посетители ссылок на {@link HyperLogLog}.
+ * На каждую ссылку и день хранится один скетч фиксированного размера (4 КБ) в link_visitor_sketches,
+ * оценка за период - объединение дневных скетчей. В памяти лежат только скетчи ссылок,
+ * по которым были переходы с последнего сброса, они сливаются с сохраненными в бд
+ * раз в link.visitors.flush-interval. Скетчи удаленных ссылок при сбросе отбрасываются.
+ */
+@Slf4j
+@Component
+public class VisitorCounter {
+    private static final int PRECISION = 12;
+    private static final Comparator<SketchKey> SKETCH_ORDER =
+            Comparator.comparingLong(SketchKey::linkId).thenComparing(SketchKey::visitDate);
+
+    private static final String SELECT_FOR_UPDATE_SQL = """
+                SELECT sketch FROM link_visitor_sketches
+                WHERE link_id = ? AND visit_date = ?
+                FOR UPDATE
+            """;
+    private static final String UPDATE_SQL = """
+                UPDATE link_visitor_sketches SET sketch = ?
+                WHERE link_id = ? AND visit_date = ?
+            """;
+    private static final String INSERT_SQL = """
+                INSERT INTO link_visitor_sketches (link_id, visit_date, sketch)
+                SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM links WHERE id = ?)
+            """;
+    private static final String SELECT_RANGE_SQL = """
+                SELECT sketch FROM link_visitor_sketches
+                WHERE link_id = ? AND visit_date BETWEEN ? AND ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<SketchKey, HyperLogLog> dirty = new ConcurrentHashMap<>();
+
+    public VisitorCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param linkId id ссылки
+     * @param visitorHash 64-битный хеш отпечатка посетителя
+     */
+    public void add(long linkId, long visitorHash) {
+        this.dirty.computeIfAbsent(new SketchKey(linkId, LocalDate.now()), key -> new HyperLogLog(PRECISION))
+                .add(visitorHash);
+    }
+
+    /**
+     * Скетч уникальных посетителей ссылки за период, включая еще не сброшенные в бд данные
+     * @param from первый день, включительно
+     * @param to последний день, включительно
+     */
+    public HyperLogLog union(long linkId, LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog(PRECISION);
+
+        this.jdbcTemplate.query(SELECT_RANGE_SQL,
+                rs -> {
+                    union.merge(HyperLogLog.fromBytes(rs.getBytes(1)));
+                },
+                linkId, Date.valueOf(from), Date.valueOf(to));
+
+        this.dirty.forEach((key, sketch) -> {
+            if (key.linkId() == linkId && !key.visitDate().isBefore(from) && !key.visitDate().isAfter(to)) {
+                union.merge(sketch);
+            }
+        });
+
+        return union;
+    }
+
+    /**
+     * Сливаем накопленные скетчи с сохраненными в бд.
+     * Скетч убирается из памяти перед записью, поэтому посетитель, добавленный в этот момент
+     * другим потоком, может не попасть в оценку - для приблизительного подсчета это допустимо.
+     */
+    @Scheduled(
+            fixedDelayString = "${link.visitors.flush-interval:1m}",
+            initialDelayString = "${link.visitors.flush-interval:1m}"
+    )
+    @PreDestroy
+    public synchronized void flush() {
+        //Одинаковый порядок FOR UPDATE на всех нодах, чтобы параллельные сбросы не ловили deadlock
+        Map<SketchKey, HyperLogLog> snapshot = new TreeMap<>(SKETCH_ORDER);
+        for (SketchKey key : new ArrayList<>(this.dirty.keySet())) {
+            HyperLogLog sketch = this.dirty.remove(key);
+            if (sketch != null) {
+                snapshot.put(key, sketch);
+            }
+        }
+
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        //Скетчи удаленных ссылок: не возвращаем их в dirty, иначе они валили бы каждый следующий сброс
+        Set<SketchKey> orphaned = new HashSet<>();
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> snapshot.forEach((key, sketch) -> {
+                if (!this.mergeIntoDatabase(key, sketch)) {
+                    orphaned.add(key);
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} visitor sketches, will retry", snapshot.size(), e);
+
+            snapshot.forEach((key, sketch) -> {
+                if (!orphaned.contains(key)) {
+                    this.dirty.merge(key, sketch, (current, restored) -> {
+                        current.merge(restored);
+                        return current;
+                    });
+                }
+            });
+        }
+
+        if (!orphaned.isEmpty()) {
+            log.debug("Dropped {} visitor sketches of deleted links", orphaned.size());
+        }
+    }
+
+    /**
+     * @return false, если ссылки уже нет и скетч некуда записать
+     */
+    private boolean mergeIntoDatabase(SketchKey key, HyperLogLog sketch) {
+        Date visitDate = Date.valueOf(key.visitDate());
+        List<byte[]> stored = this.jdbcTemplate.query(
+                SELECT_FOR_UPDATE_SQL, (rs, rowNum) -> rs.getBytes(1), key.linkId(), visitDate
+        );
+
+        if (stored.isEmpty()) {
+            return this.jdbcTemplate.update(INSERT_SQL, key.linkId(), visitDate, sketch.toBytes(), key.linkId()) > 0;
+        }
+
+        HyperLogLog merged = HyperLogLog.fromBytes(stored.getFirst());
+        merged.merge(sketch);
+        this.jdbcTemplate.update(UPDATE_SQL, merged.toBytes(), key.linkId(), visitDate);
+        return true;
+    }
+
+    private record SketchKey(long linkId, LocalDate visitDate) {
+    }
+}
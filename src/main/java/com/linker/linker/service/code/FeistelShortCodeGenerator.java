@@ -0,0 +1,116 @@
+package com.linker.linker.service.code;
+
+import com.linker.linker.handler.FeistelPermutation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.function.LongSupplier;
+
+/**
+ * Короткие коды из последовательности: номер ссылки перемешивается ключевой перестановкой Фейстеля
+ * и кодируется в Base62 минимальной длины. Первые 2^34 кодов - 6 символов, следующие 2^40 - 7,
+ * следующие 2^46 - 8. Каждая длина - своя перестановка своего диапазона номеров, поэтому коды
+ * уникальны без обращения к бд и не пересекаются со старыми 12-символьными случайными кодами.
+ *
+ * <p>Номера выдает sequence short_code_seq блоками по {@link #BLOCK_SIZE} (increment by в changelog),
+ * внутри блока - из памяти. Блоки, не выбранные до остановки ноды, просто пропускаются.
+ * Ключ перестановки (link.codes.feistel.key) менять нельзя: с другим ключом новые коды начнут совпадать со старыми.
+ * Ключ задается только окружением: зная его, можно обратить перестановку и перечислить коды всех ссылок.
+ */
+@Component
+@ConditionalOnProperty(name = "link.codes.mode", havingValue = "feistel")
+public class FeistelShortCodeGenerator implements ShortCodeGenerator {
+    public static final int BLOCK_SIZE = 100;
+
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final String SEQUENCE = "short_code_seq";
+
+    //Длина кода и размер домена в битах: 62^6 > 2^34, 62^7 > 2^40, 62^8 > 2^46
+    private static final int[] LENGTHS = {6, 7, 8};
+    private static final int[] BITS = {34, 40, 46};
+
+    private final FeistelPermutation[] permutations = new FeistelPermutation[LENGTHS.length];
+    private final LongSupplier blockSource;
+    private long next;
+    private long blockEnd;
+
+    @Autowired
+    public FeistelShortCodeGenerator(DataSource dataSource,
+                                     @Value("${link.codes.feistel.key}") String key) {
+        this(key, sequenceIncrementer(dataSource)::nextLongValue);
+    }
+
+    /**
+     * @param blockSource начало следующего свободного блока из BLOCK_SIZE номеров
+     */
+    public FeistelShortCodeGenerator(String key, LongSupplier blockSource) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalStateException("link.codes.feistel.key (LINK_CODES_FEISTEL_KEY) must be set");
+        }
+
+        this.blockSource = blockSource;
+        for (int tier = 0; tier < LENGTHS.length; tier++) {
+            this.permutations[tier] = new FeistelPermutation(BITS[tier], key);
+        }
+    }
+
+    @Override
+    public synchronized String next() {
+        if (this.next == this.blockEnd) {
+            this.next = this.blockSource.getAsLong();
+            this.blockEnd = this.next + BLOCK_SIZE;
+        }
+
+        return this.encode(this.next++);
+    }
+
+    /**
+     * @param sequence номер ссылки, от 0
+     * @return код, однозначно соответствующий номеру
+     */
+    public String encode(long sequence) {
+        long offset = sequence;
+
+        for (int tier = 0; tier < LENGTHS.length; tier++) {
+            long domain = 1L << BITS[tier];
+            if (offset < domain) {
+                return base62(this.permutations[tier].permute(offset), LENGTHS[tier]);
+            }
+            offset -= domain;
+        }
+
+        throw new IllegalStateException("Short code sequence is exhausted: " + sequence);
+    }
+
+    private static String base62(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = BASE62[(int) (value % BASE62.length)];
+            value /= BASE62.length;
+        }
+
+        return new String(chars);
+    }
+
+    private static DataFieldMaxValueIncrementer sequenceIncrementer(DataSource dataSource) {
+        String database;
+        try {
+            database = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot detect database for " + SEQUENCE, e);
+        }
+
+        return "H2".equals(database)
+                ? new H2SequenceMaxValueIncrementer(dataSource, SEQUENCE)
+                : new PostgresSequenceMaxValueIncrementer(dataSource, SEQUENCE);
+    }
+}
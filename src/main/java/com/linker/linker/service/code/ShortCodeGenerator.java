@@ -0,0 +1,14 @@
+package com.linker.linker.service.code;
+
+/**
+ * Источник коротких кодов для новых ссылок.
+ * Режим выбирается свойством link.codes.mode: random (по умолчанию) - {@link ShortCodePool},
+ * feistel - {@link FeistelShortCodeGenerator}.
+ */
+public interface ShortCodeGenerator {
+
+    /**
+     * @return код, которого гарантированно нет среди ссылок
+     */
+    String next();
+}
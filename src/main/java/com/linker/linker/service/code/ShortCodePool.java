@@ -0,0 +1,154 @@
+package com.linker.linker.service.code;
+
+import com.linker.linker.handler.UrlHashGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул заранее зарезервированных коротких кодов.
+ * Код попадает в пул, только если его удалось вставить в short_code_pool (первичный ключ)
+ * и его нет в links, поэтому две ноды никогда не получат один код, а вставка ссылки
+ * не может упасть на уникальности new_url. Коды раздаются из памяти без обращения к бд,
+ * когда в памяти остается меньше link.codes.pool.low-watermark кодов, пул пополняется в фоне.
+ * Строки кодов, которые уже стали ссылками, периодически удаляются - дальше их защищает уникальность links.new_url.
+ * Коды, зарезервированные нодой, которая упала, так и остаются в таблице неиспользованными - это не мешает.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "link.codes.mode", havingValue = "random", matchIfMissing = true)
+public class ShortCodePool implements ShortCodeGenerator {
+    private static final String RESERVE_SQL = """
+                INSERT INTO short_code_pool (code, reserved_at)
+                SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM links WHERE new_url = ?)
+            """;
+    private static final String CLEANUP_SQL = """
+                DELETE FROM short_code_pool
+                WHERE EXISTS (SELECT 1 FROM links WHERE links.new_url = short_code_pool.code)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int lowWatermark;
+    private final Queue<String> codes = new ConcurrentLinkedQueue<>();
+    //size() у ConcurrentLinkedQueue - обход всей очереди, поэтому размер считаем отдельно
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("short-code-pool").daemon().factory()
+    );
+
+    public ShortCodePool(JdbcTemplate jdbcTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${link.codes.pool.batch-size:1000}") int batchSize,
+                         @Value("${link.codes.pool.low-watermark:200}") int lowWatermark) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.lowWatermark = lowWatermark;
+
+        Gauge.builder("link.codes.pool.available", this.available, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefill() {
+        this.refillAsync();
+    }
+
+    /**
+     * @return свободный код; если пул пуст, пополняем его в текущем потоке
+     */
+    @Override
+    public String next() {
+        String code = this.codes.poll();
+        while (code == null) {
+            this.refill();
+            code = this.codes.poll();
+        }
+
+        if (this.available.decrementAndGet() < this.lowWatermark) {
+            this.refillAsync();
+        }
+
+        return code;
+    }
+
+    /**
+     * Убираем из таблицы коды, которые уже стали ссылками
+     */
+    @Scheduled(
+            fixedDelayString = "${link.codes.pool.cleanup-interval:1h}",
+            initialDelayString = "${link.codes.pool.cleanup-interval:1h}"
+    )
+    public void cleanup() {
+        int deleted = this.jdbcTemplate.update(CLEANUP_SQL);
+        log.info("Removed {} used codes from short_code_pool", deleted);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.refiller.shutdownNow();
+    }
+
+    private void refillAsync() {
+        if (this.refillScheduled.compareAndSet(false, true)) {
+            this.refiller.execute(() -> {
+                try {
+                    this.refill();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refill short code pool", e);
+                } finally {
+                    this.refillScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private synchronized void refill() {
+        //Пока ждали блокировку, пул мог пополнить другой поток
+        if (this.available.get() >= this.lowWatermark) {
+            return;
+        }
+
+        Set<String> generated = new LinkedHashSet<>();
+        while (generated.size() < this.batchSize) {
+            generated.add(UrlHashGenerator.generateBase62Id());
+        }
+
+        List<String> candidates = new ArrayList<>(generated);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[] reserved = this.jdbcTemplate.batchUpdate(RESERVE_SQL, candidates, candidates.size(), (ps, code) -> {
+            ps.setString(1, code);
+            ps.setTimestamp(2, now);
+            ps.setString(3, code);
+        })[0];
+
+        for (int i = 0; i < reserved.length; i++) {
+            if (reserved[i] == 1) {
+                this.codes.offer(candidates.get(i));
+                this.available.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.linker.linker.service.diagnostics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Проверки и метрики режима виртуальных потоков (spring.threads.virtual.enabled=true).
+ * При старте пишет в лог, на чем обслуживаются запросы, и предупреждает о том, что ограничивает виртуальные потоки:
+ * до Java 24 synchronized прикрепляет (pin) виртуальный поток к carrier-потоку,
+ * а число одновременных запросов к бд все равно ограничено пулом Hikari.
+ * Во время работы через JFR считает прикрепления дольше link.threads.pinned-threshold:
+ * jvm.threads.virtual.pinned (время) и jvm.threads.virtual.submit.failed.
+ * Ожидание соединения из пула - стандартные hikaricp.connections.acquire и hikaricp.connections.pending.
+ */
+@Slf4j
+@Component
+public class VirtualThreadDiagnostics {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+    //С Java 24 (JEP 491) synchronized больше не прикрепляет виртуальный поток
+    private static final int SYNCHRONIZED_UNPINNED_SINCE = 24;
+
+    private final boolean virtualThreads;
+    private final DataSource dataSource;
+    private final Duration pinnedThreshold;
+    private final Timer pinned;
+    private final Counter submitFailed;
+    private RecordingStream recording;
+
+    public VirtualThreadDiagnostics(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                    DataSource dataSource,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${link.threads.pinned-threshold:20ms}") Duration pinnedThreshold) {
+        this.virtualThreads = virtualThreads;
+        this.dataSource = dataSource;
+        this.pinnedThreshold = pinnedThreshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned").register(meterRegistry);
+        this.submitFailed = Counter.builder("jvm.threads.virtual.submit.failed").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!this.virtualThreads) {
+            log.info("Requests are served on platform threads, set spring.threads.virtual.enabled=true to use virtual threads");
+            return;
+        }
+
+        this.check();
+        this.record();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (this.recording != null) {
+            this.recording.close();
+        }
+    }
+
+    private void check() {
+        int javaVersion = Runtime.version().feature();
+        log.info("Requests, @Scheduled tasks and Rabbit listeners are served on virtual threads (Java {}, {} carrier threads)",
+                javaVersion,
+                System.getProperty("jdk.virtualThreadScheduler.parallelism",
+                        String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        if (javaVersion < SYNCHRONIZED_UNPINNED_SINCE) {
+            log.warn("Java {} pins virtual threads inside synchronized blocks, blocking calls there occupy a carrier thread; "
+                    + "use Java {}+ or watch jvm.threads.virtual.pinned", javaVersion, SYNCHRONIZED_UNPINNED_SINCE);
+        }
+
+        if (this.dataSource instanceof HikariDataSource hikari) {
+            log.info("Concurrent database work is limited by the Hikari pool: maximum-pool-size={}, connection-timeout={}ms, "
+                            + "waiting is reported in hikaricp.connections.pending and hikaricp.connections.acquire",
+                    hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+        }
+    }
+
+    private void record() {
+        try {
+            this.recording = new RecordingStream();
+            this.recording.enable(PINNED_EVENT).withThreshold(this.pinnedThreshold).withStackTrace();
+            this.recording.enable(SUBMIT_FAILED_EVENT);
+            this.recording.onEvent(PINNED_EVENT, this::onPinned);
+            this.recording.onEvent(SUBMIT_FAILED_EVENT, event -> this.submitFailed.increment());
+            this.recording.startAsync();
+        } catch (RuntimeException e) {
+            //JFR может быть недоступен (например, в урезанном образе JRE) - это не повод не стартовать
+            log.warn("Virtual thread pinning metrics are disabled: JFR is not available", e);
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        this.pinned.record(event.getDuration());
+
+        if (log.isDebugEnabled() && event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().stream()
+                    .filter(frame -> frame.getMethod().getType().getName().startsWith("com.linker"))
+                    .findFirst()
+                    .map(RecordedFrame::toString)
+                    .ifPresent(frame -> log.debug("Virtual thread pinned for {} at {}", event.getDuration(), frame));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.linker.linker.service.redirect;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение попыток ввода кода приватной ссылки по паре (hash, ip): не больше limit попыток за period,
+ * все limit можно потратить сразу. Алгоритм GCRA (эквивалент token bucket): на ключ хранится одно число -
+ * теоретическое время следующей попытки (TAT), проверка - один CAS, O(1) и без блокировок.
+ * Состояния лежат в Caffeine с maximumSize и expireAfterAccess(period): через period после последней попытки
+ * TAT уже в прошлом, и удаленный ключ ничем не отличается от нового, поэтому память ограничена
+ * maximumSize при любом числе ключей. При переполнении W-TinyLFU держит часто бьющие ключи,
+ * поэтому перебор кодов с одного адреса не вытесняется потоком разовых ключей.
+ * Счетчики cache.* с тегом cache=private-code-attempts, отказы - link.private.attempts.rejected.
+ */
+@Component
+public class PrivateCodeAttemptLimiter {
+    private final Cache<Key, AtomicLong> attempts;
+    private final Ticker ticker;
+    //Интервал между попытками и допустимый запас (burst), наносекунды
+    private final long interval;
+    private final long tolerance;
+    private final Counter rejected;
+
+    @Autowired
+    public PrivateCodeAttemptLimiter(MeterRegistry meterRegistry,
+                                     @Value("${link.private.attempts.limit:5}") int limit,
+                                     @Value("${link.private.attempts.period:1m}") Duration period,
+                                     @Value("${link.private.attempts.maximum-size:100000}") long maximumSize) {
+        this(meterRegistry, limit, period, maximumSize, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker источник времени для TAT и истечения ключей, в тестах - ручной
+     */
+    PrivateCodeAttemptLimiter(MeterRegistry meterRegistry, int limit, Duration period, long maximumSize, Ticker ticker) {
+        this.ticker = ticker;
+        this.interval = period.toNanos() / limit;
+        this.tolerance = this.interval * (limit - 1);
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(period)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.attempts, "private-code-attempts");
+        this.rejected = Counter.builder("link.private.attempts.rejected").register(meterRegistry);
+    }
+
+    /**
+     * @return 0 - попытка разрешена, иначе через сколько наносекунд будет разрешена следующая
+     */
+    public long tryAcquire(String hash, String address) {
+        AtomicLong tat = this.attempts.get(new Key(hash, address), key -> new AtomicLong(Long.MIN_VALUE));
+        long now = this.ticker.read();
+
+        while (true) {
+            long current = tat.get();
+            long allowedFrom = Math.max(current, now);
+            long wait = allowedFrom - this.tolerance - now;
+            if (wait > 0) {
+                this.rejected.increment();
+                return wait;
+            }
+
+            if (tat.compareAndSet(current, allowedFrom + this.interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return число хранимых ключей после удаления истекших и вытесненных
+     */
+    long size() {
+        this.attempts.cleanUp();
+        return this.attempts.estimatedSize();
+    }
+
+    private record Key(String hash, String address) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.linker.linker.service.redirect;
+
+import com.linker.linker.service.cache.CachedLink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Пропуск к приватной ссылке после верного кода: cookie с HMAC-SHA256 подписью, действует только на /cc/{hash}.
+ * Значение - срок действия и подпись от (hash, version, срок действия), поэтому повторный переход
+ * проверяется без формы и без бд, а любое изменение ссылки (в том числе кода) меняет version и отзывает пропуск.
+ * Пропуск не дает доступа к истекшей ссылке: срок ссылки проверяется до пропуска.
+ * Ключ (link.private.pass.secret, base64) задается только окружением: с ним можно подделать пропуск к любой ссылке.
+ */
+@Component
+public class PrivateLinkPass {
+    public static final String COOKIE_NAME = "cc_pass";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac prototype;
+    private final Duration ttl;
+
+    public PrivateLinkPass(@Value("${link.private.pass.secret}") String secret,
+                           @Value("${link.private.pass.ttl:30m}") Duration ttl) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("link.private.pass.secret (LINK_PRIVATE_PASS_SECRET) must be set");
+        }
+
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(Base64.getDecoder().decode(secret), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize private link pass signer", e);
+        }
+        this.ttl = ttl;
+    }
+
+    /**
+     * @param secure ставить ли атрибут Secure (запрос пришел по https)
+     */
+    public ResponseCookie issue(CachedLink link, boolean secure) {
+        long expiresAt = Instant.now().plus(this.ttl).getEpochSecond();
+
+        return ResponseCookie.from(COOKIE_NAME, expiresAt + "." + ENCODER.encodeToString(this.sign(link, expiresAt)))
+                .path("/cc/" + link.getHash())
+                .maxAge(this.ttl)
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .build();
+    }
+
+    public boolean isValid(CachedLink link, String value) {
+        if (value == null) {
+            return false;
+        }
+
+        int dot = value.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+
+        try {
+            long expiresAt = Long.parseLong(value, 0, dot, 10);
+            if (expiresAt < Instant.now().getEpochSecond()) {
+                return false;
+            }
+
+            return MessageDigest.isEqual(this.sign(link, expiresAt), DECODER.decode(value.substring(dot + 1)));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Значение пропуска из заголовка Cookie, null - пропуска нет
+     */
+    public static String fromHeader(String cookieHeader) {
+        if (cookieHeader == null) {
+            return null;
+        }
+
+        for (String cookie : cookieHeader.split(";")) {
+            String trimmed = cookie.trim();
+            if (trimmed.startsWith(COOKIE_NAME + "=")) {
+                return trimmed.substring(COOKIE_NAME.length() + 1);
+            }
+        }
+
+        return null;
+    }
+
+    private byte[] sign(CachedLink link, long expiresAt) {
+        Mac mac;
+        try {
+            //Mac не потокобезопасен, копия из уже инициализированного прототипа дешевле нового init
+            mac = (Mac) this.prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " does not support clone", e);
+        }
+
+        return mac.doFinal((link.getHash() + ":" + link.getVersion() + ":" + expiresAt).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package com.linker.linker.service.redirect;
+
+import com.linker.linker.service.cache.CachedLink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Заголовки кэширования редиректа по короткой ссылке (Cache-Control и Expires).
+ * Время жизни - cacheMaxAge ссылки, но не дольше, чем осталось до timeToLeave, и не больше
+ * link.redirect.cache.max-age-limit: закэшированный браузером или CDN редирект не сбросить инвалидацией,
+ * после изменения ссылки старый адрес отдается до истечения max-age.
+ * Приватные ссылки и ссылки без cacheMaxAge отдаются с no-store.
+ * Повторные клики из кэша браузера до нас не доходят и в статистику не попадают.
+ */
+@Component
+public class RedirectCachePolicy {
+    private final Duration maxAgeLimit;
+
+    public RedirectCachePolicy(@Value("${link.redirect.cache.max-age-limit:1d}") Duration maxAgeLimit) {
+        this.maxAgeLimit = maxAgeLimit;
+    }
+
+    public HttpHeaders headers(CachedLink link) {
+        return headers(this.maxAge(link, LocalDateTime.now()));
+    }
+
+    /**
+     * Заголовки ответа, который нельзя кэшировать: форма кода, страница ошибки, редирект приватной ссылки
+     */
+    public static HttpHeaders noStore() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noStore());
+
+        return headers;
+    }
+
+    Duration maxAge(CachedLink link, LocalDateTime now) {
+        if (link.isPrivate() || link.getCacheMaxAge() == null || link.getCacheMaxAge() <= 0) {
+            return Duration.ZERO;
+        }
+
+        Duration maxAge = Duration.ofSeconds(link.getCacheMaxAge());
+        if (maxAge.compareTo(this.maxAgeLimit) > 0) {
+            maxAge = this.maxAgeLimit;
+        }
+
+        if (link.getTimeToLeave() != null) {
+            Duration left = Duration.between(now, link.getTimeToLeave()).truncatedTo(ChronoUnit.SECONDS);
+            if (left.compareTo(maxAge) < 0) {
+                maxAge = left.isNegative() ? Duration.ZERO : left;
+            }
+        }
+
+        return maxAge;
+    }
+
+    private static HttpHeaders headers(Duration maxAge) {
+        if (maxAge.isZero()) {
+            return noStore();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.maxAge(maxAge).cachePublic());
+        //Для HTTP/1.0 кэшей, которые не понимают max-age
+        headers.setExpires(System.currentTimeMillis() + maxAge.toMillis());
+
+        return headers;
+    }
+}
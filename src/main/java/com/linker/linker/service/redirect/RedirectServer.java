@@ -0,0 +1,148 @@
+package com.linker.linker.service.redirect;
+
+import com.linker.linker.service.cache.CachedLink;
+import com.linker.linker.service.cache.LinkResolver;
+import com.linker.linker.service.click.ClickTracker;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Отдельный легкий сервер редиректов на своем порту (link.redirect.server.port), мимо Spring Security и MVC.
+ * Обрабатывает только GET/HEAD /cc/{hash}: тот же поиск ({@link LinkResolver}) и учет кликов ({@link ClickTracker}),
+ * что и в RedirectToLinkController, ответ - редирект с Location без тела, код и заголовки кэширования
+ * те же, что у RedirectToLinkController ({@link RedirectCachePolicy}).
+ * Приватные ссылки без пропуска ({@link PrivateLinkPass}) и истекшие ссылки отправляются на основное приложение
+ * (link.redirect.server.fallback-url), которое показывает форму кода или страницу ошибки.
+ * Cookie не привязаны к порту, поэтому пропуск, выданный основным приложением на том же хосте, действует и здесь.
+ * Соединения принимает селектор JDK HttpServer, запросы обрабатываются на виртуальных потоках,
+ * поэтому промах кэша с запросом в бд не держит платформенный поток.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "link.redirect.server.enabled", havingValue = "true")
+public class RedirectServer {
+    private static final String PREFIX = "/cc/";
+
+    private final LinkResolver linkResolver;
+    private final ClickTracker clickTracker;
+    private final RedirectCachePolicy redirectCachePolicy;
+    private final PrivateLinkPass privateLinkPass;
+    private final int port;
+    private final int backlog;
+    private final String fallbackUrl;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private HttpServer server;
+
+    public RedirectServer(LinkResolver linkResolver,
+                          ClickTracker clickTracker,
+                          RedirectCachePolicy redirectCachePolicy,
+                          PrivateLinkPass privateLinkPass,
+                          @Value("${link.redirect.server.port:8081}") int port,
+                          @Value("${link.redirect.server.backlog:1024}") int backlog,
+                          @Value("${link.redirect.server.fallback-url:http://localhost:8080}") String fallbackUrl) {
+        this.linkResolver = linkResolver;
+        this.clickTracker = clickTracker;
+        this.redirectCachePolicy = redirectCachePolicy;
+        this.privateLinkPass = privateLinkPass;
+        this.port = port;
+        this.backlog = backlog;
+        this.fallbackUrl = fallbackUrl;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(this.port), this.backlog);
+        this.server.createContext(PREFIX, this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+
+        log.info("Redirect server started on port {}", this.getPort());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+        }
+        this.executor.close();
+    }
+
+    /**
+     * @return фактический порт, при link.redirect.server.port=0 выбирается свободный
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                this.serve(exchange);
+            } catch (RuntimeException e) {
+                log.warn("Failed to serve redirect {}", exchange.getRequestURI(), e);
+                exchange.sendResponseHeaders(500, -1);
+            }
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            exchange.getResponseHeaders().set(HttpHeaders.ALLOW, "GET, HEAD");
+            exchange.sendResponseHeaders(405, -1);
+            return;
+        }
+
+        String hash = exchange.getRequestURI().getRawPath().substring(PREFIX.length());
+        if (hash.isEmpty() || hash.indexOf('/') >= 0) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        CachedLink link = this.linkResolver.resolve(hash).orElse(null);
+        if (link == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        Headers headers = exchange.getRequestHeaders();
+
+        //Форму кода и страницу истекшей ссылки рисует основное приложение
+        if (link.isExpired(LocalDateTime.now())
+                || (link.isPrivate() && !this.privateLinkPass.isValid(link, PrivateLinkPass.fromHeader(headers.getFirst(HttpHeaders.COOKIE))))) {
+            this.redirect(exchange, 302, this.fallbackUrl + PREFIX + hash, RedirectCachePolicy.noStore());
+            return;
+        }
+
+        this.clickTracker.track(
+                link,
+                exchange.getRemoteAddress().getAddress().getHostAddress(),
+                headers.getFirst(HttpHeaders.USER_AGENT),
+                headers.getFirst(HttpHeaders.REFERER)
+        );
+
+        this.redirect(exchange, link.getRedirectType().getStatusCode(), link.getOldUrl(), this.redirectCachePolicy.headers(link));
+    }
+
+    private void redirect(HttpExchange exchange, int status, String location, HttpHeaders headers) throws IOException {
+        Headers responseHeaders = exchange.getResponseHeaders();
+        headers.forEach(responseHeaders::put);
+        responseHeaders.set(HttpHeaders.LOCATION, location);
+        exchange.sendResponseHeaders(status, -1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.linker.linker.service.transfer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Построчное чтение с ограничением длины строки.
+ * В отличие от BufferedReader.readLine, строка длиннее maxLength не копится в памяти:
+ * ее остаток до перевода строки пропускается, а {@link #isOverflow()} сообщает, что строка обрезана.
+ * Память - буфер чтения и одна строка не длиннее maxLength, независимо от размера файла.
+ */
+class BoundedLineReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder line;
+    private int position;
+    private int limit;
+    private boolean overflow;
+
+    BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+        this.line = new StringBuilder(Math.min(maxLength, BUFFER_SIZE));
+    }
+
+    /**
+     * @return строка без перевода строки, null - конец файла;
+     * если строка длиннее maxLength, возвращается пустая строка и {@link #isOverflow()} = true
+     */
+    String readLine() throws IOException {
+        this.line.setLength(0);
+        this.overflow = false;
+        boolean read = false;
+
+        while (true) {
+            if (this.position == this.limit) {
+                this.limit = this.reader.read(this.buffer, 0, BUFFER_SIZE);
+                this.position = 0;
+                if (this.limit <= 0) {
+                    this.limit = 0;
+                    return read ? this.result() : null;
+                }
+            }
+
+            read = true;
+            char c = this.buffer[this.position++];
+            if (c == '\n') {
+                return this.result();
+            }
+
+            if (!this.overflow) {
+                if (this.line.length() == this.maxLength) {
+                    this.overflow = true;
+                    this.line.setLength(0);
+                } else {
+                    this.line.append(c);
+                }
+            }
+        }
+    }
+
+    boolean isOverflow() {
+        return this.overflow;
+    }
+
+    private String result() {
+        if (this.overflow) {
+            return "";
+        }
+
+        int length = this.line.length();
+        if (length > 0 && this.line.charAt(length - 1) == '\r') {
+            this.line.setLength(length - 1);
+        }
+
+        return this.line.toString();
+    }
+}
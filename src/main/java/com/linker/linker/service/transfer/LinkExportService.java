@@ -0,0 +1,90 @@
+package com.linker.linker.service.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.dto.response.LinkExportDto;
+import com.linker.linker.repository.LinkRepository;
+import com.linker.linker.service.auth.AuthenticatedUser;
+import com.linker.linker.service.click.ClickCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковый экспорт всех ссылок пользователя в NDJSON или CSV.
+ * Строки читаются forward-only курсором (fetch size 1000) как DTO, а не сущности,
+ * поэтому ни persistence context, ни куча не растут с числом ссылок.
+ */
+@Service
+@RequiredArgsConstructor
+public class LinkExportService {
+    private static final String CSV_HEADER = "id,oldUrl,newUrl,status,privateCode,timeToLeave,createdAt,clicks";
+    private static final int FLUSH_EVERY = 1000;
+
+    private final LinkRepository linkRepository;
+    private final ClickCounter clickCounter;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param csv true - CSV с заголовком, false - NDJSON
+     * @param writer ответ
+     */
+    @Transactional(readOnly = true)
+    public void export(boolean csv, Writer writer) throws IOException {
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (csv) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<LinkExportDto> rows = this.linkRepository.streamForExport(user.getId())) {
+            Iterator<LinkExportDto> iterator = rows.iterator();
+            long written = 0;
+
+            while (iterator.hasNext()) {
+                LinkExportDto row = iterator.next();
+                row.setClicks(row.getClicks() + this.clickCounter.pending(row.getId()));
+
+                writer.write(csv ? toCsv(row) : this.objectMapper.writeValueAsString(row));
+                writer.write('\n');
+
+                if (++written % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    private static String toCsv(LinkExportDto row) {
+        return String.join(",",
+                String.valueOf(row.getId()),
+                csvField(row.getOldUrl()),
+                csvField(row.getNewUrl()),
+                row.getStatus() == null ? "" : row.getStatus().name(),
+                csvField(row.getPrivateCode()),
+                row.getTimeToLeave() == null ? "" : row.getTimeToLeave().toString(),
+                row.getCreatedAt() == null ? "" : row.getCreatedAt().toString(),
+                String.valueOf(row.getClicks())
+        );
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,35 @@
+package com.linker.linker.service.transfer;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Состояние одного импорта ссылок, обновляется по ходу чтения файла
+ */
+@Getter
+public class LinkImport {
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final Long userId;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Status status = Status.RUNNING;
+    private volatile LocalDateTime finishedAt;
+
+    public LinkImport(String id, Long userId) {
+        this.id = id;
+        this.userId = userId;
+    }
+
+    void finish(Status status) {
+        this.status = status;
+        this.finishedAt = LocalDateTime.now();
+    }
+}
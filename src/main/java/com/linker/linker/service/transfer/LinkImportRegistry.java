@@ -0,0 +1,35 @@
+package com.linker.linker.service.transfer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Импорты ссылок на этой ноде. Прогресс хранится в памяти и доступен еще час после последнего обращения.
+ */
+@Component
+public class LinkImportRegistry {
+    private final Cache<String, LinkImport> imports = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public LinkImport start(Long userId) {
+        LinkImport linkImport = new LinkImport(UUID.randomUUID().toString(), userId);
+        this.imports.put(linkImport.getId(), linkImport);
+
+        return linkImport;
+    }
+
+    /**
+     * @return импорт, если он принадлежит пользователю
+     */
+    public Optional<LinkImport> find(String id, Long userId) {
+        return Optional.ofNullable(this.imports.getIfPresent(id))
+                .filter(linkImport -> linkImport.getUserId().equals(userId));
+    }
+}
@@ -0,0 +1,262 @@
+package com.linker.linker.service.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.dto.request.LinkDtoRequest;
+import com.linker.linker.dto.response.ImportProgressDto;
+import com.linker.linker.dto.response.ImportRowResultDto;
+import com.linker.linker.entity.Link;
+import com.linker.linker.entity.utils.Status;
+import com.linker.linker.handler.interfaces.OnCreate;
+import com.linker.linker.mapper.LinkMapper;
+import com.linker.linker.service.LinkService;
+import com.linker.linker.service.auth.AuthenticatedUser;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт ссылок из NDJSON или CSV.
+ * Файл читается построчно, в памяти только текущая пачка из link.import.batch-size строк,
+ * строка длиннее link.import.max-line-length символов не копится, а считается ошибочной,
+ * каждая пачка пишется своей транзакцией через {@link LinkService#createLinks}.
+ * Следующая пачка читается только после записи предыдущей, поэтому медленная бд
+ * притормаживает и отправителя файла (через TCP), а не копит строки в памяти.
+ * Результат по каждой строке сразу пишется в ответ, ошибки - в порядке чтения, созданные ссылки - после записи пачки.
+ *
+ * <p>CSV: oldUrl,status,privateCode,timeToLeave (ISO-8601), строка заголовка необязательна,
+ * значения с запятыми берутся в двойные кавычки.
+ */
+@Slf4j
+@Service
+public class LinkImportService {
+    private static final String CSV_HEADER = "oldUrl";
+
+    private final LinkService linkService;
+    private final LinkImportRegistry linkImportRegistry;
+    private final LinkMapper linkMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxLineLength;
+
+    public LinkImportService(LinkService linkService,
+                             LinkImportRegistry linkImportRegistry,
+                             LinkMapper linkMapper,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${link.import.batch-size:1000}") int batchSize,
+                             @Value("${link.import.max-line-length:8192}") int maxLineLength) {
+        this.linkService = linkService;
+        this.linkImportRegistry = linkImportRegistry;
+        this.linkMapper = linkMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public LinkImport start() {
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return this.linkImportRegistry.start(user.getId());
+    }
+
+    public Optional<ImportProgressDto> getProgress(String id) {
+        AuthenticatedUser user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return this.linkImportRegistry.find(id, user.getId())
+                .map(linkImport -> new ImportProgressDto(
+                        linkImport.getId(),
+                        linkImport.getStatus().name(),
+                        linkImport.getProcessed().get(),
+                        linkImport.getCreated().get(),
+                        linkImport.getFailed().get(),
+                        linkImport.getStartedAt(),
+                        linkImport.getFinishedAt()
+                ));
+    }
+
+    /**
+     * @param reader тело запроса
+     * @param csv true - CSV, false - NDJSON
+     * @param writer ответ, в него пишется по строке NDJSON на каждую строку файла
+     * @param progress прогресс импорта
+     */
+    public void importLinks(Reader reader, boolean csv, Writer writer, LinkImport progress) throws IOException {
+        BoundedLineReader lines = new BoundedLineReader(reader, this.maxLineLength);
+        List<Row> batch = new ArrayList<>(this.batchSize);
+        long lineNumber = 0;
+        String line;
+
+        try {
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (lines.isOverflow()) {
+                    progress.getProcessed().incrementAndGet();
+                    this.writeFailure(writer, lineNumber, "Row is longer than " + this.maxLineLength + " characters", progress);
+                    continue;
+                }
+
+                if (line.isBlank() || (csv && lineNumber == 1 && line.startsWith(CSV_HEADER))) {
+                    continue;
+                }
+
+                progress.getProcessed().incrementAndGet();
+
+                LinkDtoRequest request;
+                try {
+                    request = csv ? parseCsv(line) : this.objectMapper.readValue(line, LinkDtoRequest.class);
+                } catch (IOException | IllegalArgumentException e) {
+                    this.writeFailure(writer, lineNumber, "Malformed row", progress);
+                    continue;
+                }
+
+                //Строка "null" в NDJSON читается как null
+                if (request == null) {
+                    this.writeFailure(writer, lineNumber, "Malformed row", progress);
+                    continue;
+                }
+
+                String error = this.validate(request);
+                if (error != null) {
+                    this.writeFailure(writer, lineNumber, error, progress);
+                    continue;
+                }
+
+                batch.add(new Row(lineNumber, request));
+                if (batch.size() == this.batchSize) {
+                    this.writeBatch(batch, writer, progress);
+                }
+            }
+
+            this.writeBatch(batch, writer, progress);
+            progress.finish(LinkImport.Status.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            progress.finish(LinkImport.Status.FAILED);
+            throw e;
+        }
+    }
+
+    private void writeBatch(List<Row> batch, Writer writer, LinkImport progress) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Link> links = batch.stream()
+                .map(row -> this.linkMapper.toEntity(row.request()))
+                .toList();
+
+        try {
+            List<String> hashes = this.linkService.createLinks(links);
+            for (int i = 0; i < batch.size(); i++) {
+                this.write(writer, new ImportRowResultDto(batch.get(i).line(), hashes.get(i), null));
+            }
+            progress.getCreated().addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to import batch of {} links", batch.size(), e);
+            for (Row row : batch) {
+                this.writeFailure(writer, row.line(), "Failed to save link", progress);
+            }
+        }
+
+        batch.clear();
+        writer.flush();
+    }
+
+    private String validate(LinkDtoRequest request) {
+        Set<ConstraintViolation<LinkDtoRequest>> violations = this.validator.validate(request, OnCreate.class);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("; "));
+    }
+
+    private void writeFailure(Writer writer, long line, String error, LinkImport progress) throws IOException {
+        progress.getFailed().incrementAndGet();
+        this.write(writer, new ImportRowResultDto(line, null, error));
+    }
+
+    private void write(Writer writer, ImportRowResultDto result) throws IOException {
+        writer.write(this.objectMapper.writeValueAsString(result));
+        writer.write('\n');
+    }
+
+    private static LinkDtoRequest parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.isEmpty() || fields.size() > 4) {
+            throw new IllegalArgumentException("Expected from 1 to 4 columns");
+        }
+
+        return new LinkDtoRequest(
+                emptyToNull(fields.get(0)),
+                fields.size() > 1 && emptyToNull(fields.get(1)) != null ? Status.valueOf(fields.get(1).trim()) : null,
+                fields.size() > 2 ? emptyToNull(fields.get(2)) : null,
+                fields.size() > 3 && emptyToNull(fields.get(3)) != null ? parseTime(fields.get(3).trim()) : null
+        );
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid timeToLeave", e);
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private record Row(long line, LinkDtoRequest request) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.linker.linker.benchmark;
+
+import com.linker.linker.entity.utils.Role;
+import com.linker.linker.service.auth.AuthenticatedUser;
+import com.linker.linker.service.auth.JwtService;
+import com.linker.linker.service.auth.TokenType;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка токена в JwtAuthenticationFilter: прежний путь (ключ и парсер создаются на каждый вызов,
+ * токен разбирается трижды - extractUsername и isTokenValid) и текущий {@link JwtService#extractClaims}
+ * с кэшем проверенных токенов (cached) и без попадания в кэш (uncached, размер кэша 0).
+ * Запуск: mvn test-compile, затем main этого класса с test classpath (например, из IDE).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+    private static final String SECRET = "ZWVyZ2VyZ9Cy0LDQs9C40L3QsNGA0LjQuWhqa2dzZWdyMjM0MjNya2IyZmIyNGJmMjRm";
+
+    private JwtService cached;
+    private JwtService uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        this.cached = new JwtService(SECRET, 10_000, new SimpleMeterRegistry());
+        this.uncached = new JwtService(SECRET, 0, new SimpleMeterRegistry());
+        this.token = this.cached.generateToken(
+                new AuthenticatedUser(1L, "benchmark", Role.ROLE_USER), TokenType.ACCESS, Duration.ofHours(1).toMillis()
+        );
+    }
+
+    @Benchmark
+    public AuthenticatedUser cached() {
+        return this.cached.toAuthenticatedUser(this.cached.extractClaims(this.token));
+    }
+
+    @Benchmark
+    public AuthenticatedUser uncached() {
+        return this.uncached.toAuthenticatedUser(this.uncached.extractClaims(this.token));
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String username = legacyClaims(this.token).getSubject();
+        //isTokenValid: еще один extractUsername и isTokenExpired
+        return username.equals(legacyClaims(this.token).getSubject())
+                && !legacyClaims(this.token).getExpiration().before(new Date());
+    }
+
+    /**
+     * Прежний разбор токена в JwtService: ключ и парсер создавались заново на каждый вызов
+     */
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
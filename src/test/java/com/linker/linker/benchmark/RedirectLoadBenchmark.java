@@ -0,0 +1,235 @@
+package com.linker.linker.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.LinkerApplication;
+import com.linker.linker.service.redirect.RedirectServer;
+import com.sun.management.OperatingSystemMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон редиректа /cc/{hash}: Tomcat на платформенных потоках, на виртуальных потоках
+ * и отдельный {@link RedirectServer}.
+ * Поднимает приложение с профилем test (H2) на каждый режим и сценарий, создает ссылки через API
+ * и держит concurrency клиентов, каждый шлет запросы подряд. Печатает пропускную способность, p50 и p99,
+ * CPU и память процесса на запрос (клиент одинаковый во всех режимах, разница - за счет сервера),
+ * число ответов не 302, а для виртуальных потоков - число прикреплений к carrier-потоку (jvm.threads.virtual.pinned).
+ * Сценарии: cached - ссылки в кэше, uncached - кэш выключен, каждый редирект идет в бд.
+ * Клиент работает в том же процессе, поэтому для честных цифр нужна машина с несколькими ядрами.
+ * Запуск: mvn test-compile, затем main этого класса с test classpath (например, из IDE).
+ * Параметры: -Dconcurrency=400 -Dwarmup=5 -Dduration=15 -Dlinks=1000
+ */
+public class RedirectLoadBenchmark {
+    private static final int CONCURRENCY = Integer.getInteger("concurrency", 400);
+    private static final int WARMUP_SECONDS = Integer.getInteger("warmup", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("duration", 15);
+    private static final int LINKS = Integer.getInteger("links", 1000);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final AtomicLong ERRORS = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        List<String> results = new ArrayList<>();
+
+        for (boolean cached : new boolean[]{true, false}) {
+            for (Mode mode : Mode.values()) {
+                results.add(run(cached, mode));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-9s %-9s %10s %10s %10s %12s %12s %8s %8s%n",
+                "scenario", "mode", "req/s", "p50 ms", "p99 ms", "cpu us/req", "alloc KB/req", "pinned", "errors");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(boolean cached, Mode mode) throws Exception {
+        String scenario = cached ? "cached" : "uncached";
+        String name = scenario + "-" + mode.getLabel();
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LinkerApplication.class)
+                .profiles("test")
+                //Аргументы командной строки, чтобы перекрыть application-test.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--spring.threads.virtual.enabled=" + (mode == Mode.VIRTUAL),
+                        "--link.redirect.server.enabled=" + (mode == Mode.SERVER),
+                        "--link.redirect.server.port=0",
+                        "--spring.rabbitmq.listener.simple.auto-startup=false",
+                        "--link.cache.maximum-size=" + (cached ? 10_000 : 0),
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--spring.jpa.properties.hibernate.show_sql=false"
+                );
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .followRedirects(HttpClient.Redirect.NEVER)
+                     .build()) {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            String[] hashes = createLinks(client, baseUrl);
+            String redirectUrl = mode == Mode.SERVER
+                    ? "http://localhost:" + context.getBean(RedirectServer.class).getPort()
+                    : baseUrl;
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+            load(client, redirectUrl, hashes, WARMUP_SECONDS);
+            ERRORS.set(0);
+            System.gc();
+            long cpuBefore = os.getProcessCpuTime();
+            double allocatedBefore = allocated(meterRegistry);
+
+            long[] latencies = load(client, redirectUrl, hashes, DURATION_SECONDS);
+
+            System.gc();
+            long requests = Math.max(1, latencies.length);
+            double cpuPerRequest = (os.getProcessCpuTime() - cpuBefore) / 1_000.0 / requests;
+            double allocatedPerRequest = (allocated(meterRegistry) - allocatedBefore) / 1024 / requests;
+            Timer pinned = meterRegistry.find("jvm.threads.virtual.pinned").timer();
+
+            return String.format("%-9s %-9s %10.0f %10.2f %10.2f %12.1f %12.1f %8d %8d",
+                    scenario,
+                    mode.getLabel(),
+                    latencies.length / (double) DURATION_SECONDS,
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.99),
+                    cpuPerRequest,
+                    allocatedPerRequest,
+                    pinned == null ? 0 : pinned.count(),
+                    ERRORS.get());
+        }
+    }
+
+    /**
+     * Выделено памяти всем процессом (вместе с клиентом), байт, по данным сборщика мусора
+     */
+    private static double allocated(MeterRegistry meterRegistry) {
+        Counter counter = meterRegistry.find("jvm.gc.memory.allocated").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * @return задержки всех запросов за прогон, наносекунды
+     */
+    private static long[] load(HttpClient client, String baseUrl, String[] hashes, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<long[]>> workers = new ArrayList<>(CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+
+                    while (System.nanoTime() < deadline) {
+                        String hash = hashes[ThreadLocalRandom.current().nextInt(hashes.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/cc/" + hash)).GET().build();
+
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        long latency = System.nanoTime() - start;
+
+                        if (response.statusCode() != 302) {
+                            ERRORS.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = latency;
+                    }
+
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        List<long[]> all = new ArrayList<>(CONCURRENCY);
+        for (Future<long[]> worker : workers) {
+            all.add(worker.get());
+        }
+
+        return all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    }
+
+    private static String[] createLinks(HttpClient client, String baseUrl) throws Exception {
+        Map<String, String> user = Map.of("username", "LoadUser", "email", "load@email.com", "password", "q1w2e3r4");
+        JsonNode tokens = post(client, baseUrl + "/api/v1/auth/registration", null, user);
+        String accessToken = tokens.get("accessToken").asText();
+
+        List<Map<String, String>> links = new ArrayList<>(LINKS);
+        for (int i = 0; i < LINKS; i++) {
+            links.add(Map.of("oldUrl", "https://example-load-" + i + ".com", "status", "PUBLIC"));
+        }
+
+        JsonNode created = post(client, baseUrl + "/api/v1/link/bulk", accessToken, links);
+        String[] hashes = new String[created.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = created.get(i).get("link").asText();
+        }
+
+        return hashes;
+    }
+
+    private static JsonNode post(HttpClient client, String url, String accessToken, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(body)));
+        if (accessToken != null) {
+            request.header("Authorization", "Bearer " + accessToken);
+        }
+
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(url + " returned " + response.statusCode() + ": " + response.body());
+        }
+
+        return OBJECT_MAPPER.readTree(response.body());
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private enum Mode {
+        PLATFORM("platform"),
+        VIRTUAL("virtual"),
+        //Отдельный RedirectServer, основное приложение на платформенных потоках
+        SERVER("server");
+
+        private final String label;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.linker.linker.benchmark;
+
+import com.linker.linker.handler.UrlHashGenerator;
+import com.linker.linker.service.code.FeistelShortCodeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Режимы коротких кодов: случайный 12-символьный и перестановка Фейстеля (6-8 символов).
+ * Блоки номеров для Фейстеля берутся из счетчика в памяти, без sequence в бд.
+ * Запуск: mvn test-compile, затем main этого класса с test classpath (например, из IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortCodeGeneratorBenchmark {
+    private final AtomicLong sequence = new AtomicLong();
+    private final FeistelShortCodeGenerator feistel = new FeistelShortCodeGenerator(
+            "benchmark-key", () -> this.sequence.getAndAdd(FeistelShortCodeGenerator.BLOCK_SIZE)
+    );
+
+    @Benchmark
+    public String feistel() {
+        return this.feistel.next();
+    }
+
+    @Benchmark
+    public String random() {
+        return UrlHashGenerator.generateBase62Id();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShortCodeGeneratorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
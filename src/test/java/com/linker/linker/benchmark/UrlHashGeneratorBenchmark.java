@@ -0,0 +1,83 @@
+package com.linker.linker.benchmark;
+
+import com.linker.linker.handler.UrlHashGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigInteger;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение генераторов коротких кодов: прежний (UUID -> BigInteger) и текущий {@link UrlHashGenerator}.
+ * Пропускная способность в 1 и 8 потоков, аллокации - колонка gc.alloc.rate.norm (байт на код).
+ * Запуск: mvn test-compile, затем main этого класса с test classpath (например, из IDE).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlHashGeneratorBenchmark {
+    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    @Benchmark
+    public String current() {
+        return UrlHashGenerator.generateBase62Id();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String currentContended() {
+        return UrlHashGenerator.generateBase62Id();
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyGenerateBase62Id();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyContended() {
+        return legacyGenerateBase62Id();
+    }
+
+    /**
+     * Прежняя реализация UrlHashGenerator.generateBase62Id, оставлена как база для сравнения
+     */
+    private static String legacyGenerateBase62Id() {
+        UUID uuid = UUID.randomUUID();
+        BigInteger number = new BigInteger(uuid.toString().replace("-", ""), 16);
+
+        StringBuilder result = new StringBuilder();
+        while (number.compareTo(BigInteger.ZERO) > 0 && result.length() < 12) {
+            BigInteger[] divmod = number.divideAndRemainder(BigInteger.valueOf(62));
+            result.append(BASE62.charAt(divmod[1].intValue()));
+            number = divmod[0];
+        }
+
+        while (result.length() < 12) {
+            result.append(BASE62.charAt((int) (Math.random() * 62)));
+        }
+
+        return result.reverse().toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UrlHashGeneratorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -11,20 +11,28 @@ import com.linker.linker.entity.utils.Status;
 import com.linker.linker.repository.LinkRepository;
 import com.linker.linker.repository.UserRepository;
 import com.linker.linker.service.auth.JwtService;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -52,6 +60,12 @@ class LinkControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private String accessToken;
 
     private Optional<User> user;
@@ -111,6 +125,226 @@ class LinkControllerTest {
         assertEquals(request.getOldUrl(), link.get().getOldUrl());
     }
 
+    @Test
+    void createLinksInBulk() throws Exception {
+        List<LinkDtoRequest> requests = List.of(
+                new LinkDtoRequest("https://example-bulk-1.com", Status.PUBLIC, null, null),
+                new LinkDtoRequest("https://example-bulk-2.com", Status.PUBLIC, null, null),
+                new LinkDtoRequest("https://example-bulk-3.com", Status.PRIVATE, "12345", null)
+        );
+
+        MvcResult result = mockMvc.perform(post("/api/v1/link/bulk")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andReturn();
+
+        JsonNode rootNode = objectMapper.readTree(result.getResponse().getContentAsString());
+        for (int i = 0; i < requests.size(); i++) {
+            Optional<Link> link = this.linkRepository.findByHash(rootNode.get(i).get("link").asText());
+            assertEquals(requests.get(i).getOldUrl(), link.get().getOldUrl());
+        }
+
+        //Один невалидный элемент - не создается ничего
+        List<LinkDtoRequest> invalid = List.of(
+                new LinkDtoRequest("https://example-bulk-4.com", Status.PUBLIC, null, null),
+                new LinkDtoRequest(null, Status.PUBLIC, null, null)
+        );
+
+        mockMvc.perform(post("/api/v1/link/bulk")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalid)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("[1] Old url is required"));
+
+        mockMvc.perform(post("/api/v1/link/bulk")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"oldUrl\": \"https://example-bulk-5.com\"}, null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("[1] Link is required"));
+
+        assertEquals(3, linkRepository.count());
+    }
+
+    @Test
+    void importLinksFromNdjson() throws Exception {
+        String body = """
+                {"oldUrl": "https://example-import-1.com"}
+                {"status": "PUBLIC"}
+                not a json
+                {"oldUrl": "https://example-import-2.com", "status": "PRIVATE", "privateCode": "12345"}
+                """;
+
+        MvcResult result = mockMvc.perform(post("/api/v1/link/import")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] rows = result.getResponse().getContentAsString().split("\n");
+        assertEquals(4, rows.length);
+        assertEquals("Old url is required", objectMapper.readTree(rows[0]).get("error").asText());
+        assertEquals(3, objectMapper.readTree(rows[1]).get("line").asLong());
+        assertEquals(4, objectMapper.readTree(rows[3]).get("line").asLong());
+
+        String createdHash = objectMapper.readTree(rows[2]).get("link").asText();
+        assertEquals("https://example-import-1.com", this.linkRepository.findByHash(createdHash).get().getOldUrl());
+
+        mockMvc.perform(get("/api/v1/link/import/" + result.getResponse().getHeader("X-Import-Id"))
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.processed").value(4))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(2));
+    }
+
+    @Test
+    void importSkipsNullAndOverlongRows() throws Exception {
+        String body = "null\n"
+                + "{\"oldUrl\": \"https://example-long.com/" + "a".repeat(20_000) + "\"}\n"
+                + "{\"oldUrl\": \"https://example-import-after-long.com\"}\n";
+
+        MvcResult result = mockMvc.perform(post("/api/v1/link/import")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] rows = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, rows.length);
+        assertEquals("Malformed row", objectMapper.readTree(rows[0]).get("error").asText());
+        assertEquals(2, objectMapper.readTree(rows[1]).get("line").asLong());
+        assertEquals(3, objectMapper.readTree(rows[2]).get("line").asLong());
+
+        mockMvc.perform(get("/api/v1/link/import/" + result.getResponse().getHeader("X-Import-Id"))
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(2));
+    }
+
+    @Test
+    void importLinksFromCsv() throws Exception {
+        String body = """
+                oldUrl,status,privateCode,timeToLeave
+                "https://example-import.com/?a=1,2",PUBLIC,,
+                https://example-import-3.com,UNKNOWN,,
+                """;
+
+        mockMvc.perform(post("/api/v1/link/import")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk());
+
+        assertEquals(1, linkRepository.count());
+        assertEquals("https://example-import.com/?a=1,2", linkRepository.findAll().getFirst().getOldUrl());
+    }
+
+    @Test
+    void exportLinks() throws Exception {
+        List<LinkDtoRequest> requests = List.of(
+                new LinkDtoRequest("https://example-export-1.com", Status.PUBLIC, null, null),
+                new LinkDtoRequest("https://example-export-2.com/?a=1,2", Status.PUBLIC, null, null)
+        );
+
+        mockMvc.perform(post("/api/v1/link/bulk")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk());
+
+        String ndjson = mockMvc.perform(get("/api/v1/link/export")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] rows = ndjson.split("\n");
+        assertEquals(2, rows.length);
+        assertEquals("https://example-export-1.com", objectMapper.readTree(rows[0]).get("oldUrl").asText());
+
+        String csv = mockMvc.perform(get("/api/v1/link/export?format=csv")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        rows = csv.split("\n");
+        assertEquals(3, rows.length);
+        assertTrue(rows[2].contains("\"https://example-export-2.com/?a=1,2\""));
+    }
+
+    @Test
+    void getLinksByCursor() throws Exception {
+        List<LinkDtoRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(new LinkDtoRequest("https://example-cursor-" + i + ".com", Status.PUBLIC, null, null));
+        }
+
+        mockMvc.perform(post("/api/v1/link/bulk")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk());
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+
+        do {
+            MvcResult result = mockMvc.perform(get("/api/v1/link/all")
+                            .param("cursor", cursor)
+                            .param("size", "2")
+                            .param("withTotal", String.valueOf(pages == 0))
+                            .header("Authorization", "Bearer " + this.accessToken))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+            if (pages == 0) {
+                assertEquals(5, page.get("total").asLong());
+            } else {
+                assertFalse(page.has("total"));
+            }
+            page.get("content").forEach(link -> assertTrue(seen.add(link.get("id").asLong())));
+
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+
+        mockMvc.perform(get("/api/v1/link/all")
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void authenticatedRequestsDoNotQueryUsers() throws Exception {
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //Эндпоинт без обращений к бд (прогресс импорта в памяти): все запросы - только аутентификация
+        mockMvc.perform(get("/api/v1/link/import/unknown-import")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isNotFound());
+
+        long authenticationQueries = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+
+        assertEquals(0, authenticationQueries);
+    }
+
     @Test
     void updateOldLink() throws Exception {
         //Создание ссылки
@@ -141,6 +375,27 @@ class LinkControllerTest {
         this.linkRepository.deleteAll();
     }
 
+    @Test
+    void concurrentUpdateReturnsConflict() throws Exception {
+        Link link = new Link();
+        link.setOldUrl("https://example-conflict.com");
+        link.setNewUrl("conflict1");
+        link.setStatus(Status.PUBLIC);
+        this.linkRepository.saveAndFlush(link);
+
+        //Другой запрос успел изменить ссылку после того, как этот ее прочитал
+        this.jdbcTemplate.update("UPDATE links SET version = version + 1 WHERE id = ?", link.getId());
+
+        mockMvc.perform(patch("/api/v1/link/" + link.getId())
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new LinkDtoRequest("https://example-conflict-2.com", Status.PUBLIC, null, null)
+                        )))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+
     @Test
     void getAllLinks() throws Exception {
         for (int i = 0; i < 10; i++) {
@@ -0,0 +1,424 @@
+package com.linker.linker.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.dto.auth.LoginRequestDto;
+import com.linker.linker.dto.auth.RegisterRequestDto;
+import com.linker.linker.dto.request.LinkDtoRequest;
+import com.linker.linker.entity.Link;
+import com.linker.linker.entity.User;
+import com.linker.linker.entity.utils.RedirectType;
+import com.linker.linker.entity.utils.Role;
+import com.linker.linker.entity.utils.Status;
+import com.linker.linker.repository.LinkRepository;
+import com.linker.linker.repository.UserRepository;
+import com.linker.linker.service.click.ClickCounter;
+import com.linker.linker.service.click.ClickRollup;
+import com.linker.linker.service.click.VisitorCounter;
+import com.linker.linker.service.redirect.PrivateLinkPass;
+import jakarta.servlet.http.Cookie;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class RedirectToLinkControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClickCounter clickCounter;
+
+    @Autowired
+    private VisitorCounter visitorCounter;
+
+    @Autowired
+    private ClickRollup clickRollup;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String accessToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RegisterRequestDto requestDto = new RegisterRequestDto(
+                "RedirectUser",
+                "redirect@email.com",
+                "q1w2e3r4"
+        );
+
+        MvcResult result = this.mockMvc.perform(post("/api/v1/auth/registration")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, String> responseMap = objectMapper.readValue(
+                result.getResponse().getContentAsString(), new TypeReference<>() {}
+        );
+        this.accessToken = responseMap.get("accessToken");
+    }
+
+    @Test
+    void popularLinkIsServedFromCache() throws Exception {
+        Link link = this.createLink("https://example-cache.com");
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("https://example-cache.com"));
+
+        //Удаляем ссылку из бд, повторный редирект должен отработать из кэша
+        this.linkRepository.delete(link);
+        this.linkRepository.flush();
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("https://example-cache.com"));
+    }
+
+    @Test
+    void updateInvalidatesCachedLink() throws Exception {
+        Link link = this.createLink("https://example-old.com");
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()))
+                .andExpect(redirectedUrl("https://example-old.com"));
+
+        LinkDtoRequest request = new LinkDtoRequest(
+                "https://example-new.com",
+                Status.PUBLIC,
+                null,
+                null
+        );
+
+        mockMvc.perform(patch("/api/v1/link/" + link.getId())
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()))
+                .andExpect(redirectedUrl("https://example-new.com"));
+    }
+
+    @Test
+    void redirectIsNotCachedByDefault() throws Exception {
+        Link link = this.createLink("https://example-default.com");
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(header().doesNotExist("Expires"));
+    }
+
+    @Test
+    void redirectUsesLinkPolicy() throws Exception {
+        Link permanent = this.createLink(new LinkDtoRequest(
+                "https://example-permanent.com", Status.PUBLIC, null, null, RedirectType.PERMANENT, 3600L
+        ));
+
+        mockMvc.perform(get("/cc/" + permanent.getNewUrl()))
+                .andExpect(status().isMovedPermanently())
+                .andExpect(redirectedUrl("https://example-permanent.com"))
+                .andExpect(header().string("Cache-Control", "max-age=3600, public"))
+                .andExpect(header().exists("Expires"));
+
+        //max-age не переживает время жизни ссылки
+        Link expiring = this.createLink(new LinkDtoRequest(
+                "https://example-expiring.com", Status.PUBLIC, null, LocalDateTime.now().plusMinutes(1),
+                RedirectType.TEMPORARY, 3600L
+        ));
+
+        String cacheControl = mockMvc.perform(get("/cc/" + expiring.getNewUrl()))
+                .andExpect(status().isTemporaryRedirect())
+                .andReturn().getResponse().getHeader("Cache-Control");
+        long maxAge = Long.parseLong(cacheControl.replaceAll("max-age=(\\d+), public", "$1"));
+        assertTrue(maxAge > 0 && maxAge <= 60, cacheControl);
+    }
+
+    @Test
+    void privateLinkIsNeverCached() throws Exception {
+        Link link = this.createLink(new LinkDtoRequest(
+                "https://example-private-cache.com", Status.PRIVATE, "code", null, RedirectType.PERMANENT, 3600L
+        ));
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"));
+
+        mockMvc.perform(post("/cc/" + link.getNewUrl() + "/check").param("code", "code"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Cache-Control", "no-store"));
+    }
+
+    @Test
+    void privateLinkPassSkipsCodeForm() throws Exception {
+        Link link = this.createLink(new LinkDtoRequest("https://example-pass.com", Status.PRIVATE, "code", null));
+        String path = "/cc/" + link.getNewUrl();
+
+        mockMvc.perform(post(path + "/check").param("code", "wrong"))
+                .andExpect(redirectedUrl(path))
+                .andExpect(cookie().doesNotExist(PrivateLinkPass.COOKIE_NAME));
+
+        Cookie pass = mockMvc.perform(post(path + "/check").param("code", "code"))
+                .andExpect(redirectedUrl("https://example-pass.com"))
+                .andExpect(cookie().path(PrivateLinkPass.COOKIE_NAME, path))
+                .andExpect(cookie().httpOnly(PrivateLinkPass.COOKIE_NAME, true))
+                .andReturn().getResponse().getCookie(PrivateLinkPass.COOKIE_NAME);
+
+        mockMvc.perform(get(path).cookie(pass))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("https://example-pass.com"));
+
+        //Поддельная подпись - снова форма
+        mockMvc.perform(get(path).cookie(new Cookie(PrivateLinkPass.COOKIE_NAME, pass.getValue() + "x")))
+                .andExpect(status().isOk());
+
+        //Изменение ссылки меняет version и отзывает пропуск
+        mockMvc.perform(patch("/api/v1/link/" + link.getId())
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new LinkDtoRequest("https://example-pass.com", Status.PRIVATE, "new-code", null)
+                        )))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(path).cookie(pass))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void codeGuessingIsLimited() throws Exception {
+        Link link = this.createLink(new LinkDtoRequest("https://example-guess.com", Status.PRIVATE, "code", null));
+        String path = "/cc/" + link.getNewUrl() + "/check";
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post(path).param("code", "guess-" + i))
+                    .andExpect(status().isFound());
+        }
+
+        //Сверх лимита не помогает и верный код
+        mockMvc.perform(post(path).param("code", "code"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(cookie().doesNotExist(PrivateLinkPass.COOKIE_NAME));
+
+        //Другой адрес проверяется отдельно
+        mockMvc.perform(post(path).param("code", "code").with(request -> {
+                    request.setRemoteAddr("10.0.0.2");
+                    return request;
+                }))
+                .andExpect(redirectedUrl("https://example-guess.com"));
+    }
+
+    @Test
+    void unknownHashReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/cc/unknownHash1"))
+                .andExpect(status().isNotFound());
+
+        //Повторный промах обслуживается кэшем промахов
+        mockMvc.perform(get("/cc/unknownHash1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void clicksAreCountedAndFlushed() throws Exception {
+        Link link = this.createLink("https://example-clicks.com");
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()));
+        mockMvc.perform(get("/cc/" + link.getNewUrl()));
+
+        //Клики еще в памяти, но уже видны в списке ссылок
+        mockMvc.perform(get("/api/v1/link/all")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].clicks").value(2));
+
+        this.clickCounter.flush();
+
+        assertEquals(0, this.clickCounter.pending(link.getId()));
+        assertEquals(2L, this.jdbcTemplate.queryForObject(
+                "SELECT clicks FROM links WHERE id = ?", Long.class, link.getId()
+        ));
+    }
+
+    @Test
+    void uniqueVisitorsAreEstimated() throws Exception {
+        Link link = this.createLink("https://example-visitors.com");
+
+        for (String userAgent : new String[]{"agent-1", "agent-2", "agent-3", "agent-1"}) {
+            mockMvc.perform(get("/cc/" + link.getNewUrl()).header("User-Agent", userAgent));
+        }
+
+        mockMvc.perform(get("/api/v1/link/" + link.getId() + "/visitors")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estimate").value(3));
+
+        //После сброса оценка собирается из сохраненного скетча
+        this.visitorCounter.flush();
+
+        mockMvc.perform(get("/api/v1/link/" + link.getId() + "/visitors")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estimate").value(3));
+    }
+
+    @Test
+    void visitorSketchOfDeletedLinkDoesNotBlockFlush() throws Exception {
+        Link link = this.createLink("https://example-visitors-orphan.com");
+        mockMvc.perform(get("/cc/" + link.getNewUrl()).header("User-Agent", "agent-1"));
+
+        //Ссылку удалили, а ее скетч еще не сброшен
+        this.visitorCounter.add(Long.MAX_VALUE, 42L);
+
+        this.visitorCounter.flush();
+
+        assertEquals(1, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM link_visitor_sketches WHERE link_id = ?", Integer.class, link.getId()
+        ));
+        assertEquals(0L, this.visitorCounter.union(Long.MAX_VALUE, LocalDate.now(), LocalDate.now()).estimate());
+    }
+
+    @Test
+    void clickSeriesIsRolledUp() throws Exception {
+        Link link = this.createLink("https://example-series.com");
+
+        mockMvc.perform(get("/cc/" + link.getNewUrl()));
+        mockMvc.perform(get("/cc/" + link.getNewUrl()));
+
+        this.clickRollup.flush();
+        mockMvc.perform(get("/cc/" + link.getNewUrl()));
+
+        //Два клика из бд и один еще в памяти, во всех трех разрезах
+        assertEquals(2L, this.jdbcTemplate.queryForObject(
+                "SELECT SUM(clicks) FROM link_clicks_day WHERE link_id = ?", Long.class, link.getId()
+        ));
+
+        for (String granularity : new String[]{"minute", "hour", "day"}) {
+            mockMvc.perform(get("/api/v1/link/" + link.getId() + "/clicks?granularity=" + granularity)
+                            .header("Authorization", "Bearer " + this.accessToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.points[-1].clicks").value(3));
+        }
+
+        mockMvc.perform(get("/api/v1/link/" + link.getId() + "/clicks?granularity=week")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void trendingLinksAreRanked() throws Exception {
+        Link hot = this.createLink("https://example-hot.com");
+
+        //Трекер общий на весь контекст, поэтому кликов больше, чем в любом другом тесте
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(get("/cc/" + hot.getNewUrl()));
+        }
+
+        String adminToken = this.adminToken();
+
+        mockMvc.perform(get("/api/v1/link/trending?window=5m&limit=1")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hash").value(hot.getNewUrl()))
+                .andExpect(jsonPath("$[0].clicks").value(10));
+
+        mockMvc.perform(get("/api/v1/link/trending?window=1d")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void trendingIsAdminOnlyAndHidesPrivateLinks() throws Exception {
+        Link open = this.createLink("https://example-open-trending.com");
+        Link hidden = this.createLink("https://example-hidden-trending.com");
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(get("/cc/" + hidden.getNewUrl()));
+        }
+        mockMvc.perform(get("/cc/" + open.getNewUrl()));
+
+        //Ссылку сделали приватной уже после кликов
+        this.jdbcTemplate.update("UPDATE links SET status = 'PRIVATE' WHERE id = ?", hidden.getId());
+
+        mockMvc.perform(get("/api/v1/link/trending?window=5m")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isForbidden());
+
+        String trending = mockMvc.perform(get("/api/v1/link/trending?window=5m")
+                        .header("Authorization", "Bearer " + this.adminToken()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(trending.contains(open.getNewUrl()), trending);
+        assertFalse(trending.contains(hidden.getNewUrl()), trending);
+    }
+
+    /**
+     * Повышаем пользователя теста до администратора и входим заново, роль берется из токена
+     */
+    private String adminToken() throws Exception {
+        User user = this.userRepository.findByUsername("RedirectUser").orElseThrow();
+        user.setRole(Role.ROLE_ADMIN);
+        this.userRepository.saveAndFlush(user);
+
+        MvcResult result = this.mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDto("RedirectUser", "q1w2e3r4"))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Link createLink(String oldUrl) throws Exception {
+        return this.createLink(new LinkDtoRequest(oldUrl, Status.PUBLIC, null, null));
+    }
+
+    private Link createLink(LinkDtoRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/link")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String hash = objectMapper.readTree(result.getResponse().getContentAsString()).get("link").asText();
+
+        return this.linkRepository.findByHash(hash).orElseThrow();
+    }
+}
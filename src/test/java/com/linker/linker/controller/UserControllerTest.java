@@ -0,0 +1,146 @@
+package com.linker.linker.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.dto.auth.RegisterRequestDto;
+import com.linker.linker.entity.User;
+import com.linker.linker.repository.UserRepository;
+import com.linker.linker.service.auth.AuthService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class UserControllerTest {
+    private static final int LINKS = 100_000;
+    //Сотня тысяч ссылок в памяти - десятки мегабайт, одна строка users - единицы килобайт
+    private static final long MAX_ALLOCATED_BYTES = 2 * 1024 * 1024;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private String accessToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RegisterRequestDto requestDto = new RegisterRequestDto(
+                "ProfileUser",
+                "profile@email.com",
+                "q1w2e3r4"
+        );
+
+        MvcResult result = this.mockMvc.perform(post("/api/v1/auth/registration")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, String> responseMap = objectMapper.readValue(
+                result.getResponse().getContentAsString(), new TypeReference<>() {}
+        );
+        this.accessToken = responseMap.get("accessToken");
+    }
+
+    @Test
+    void userReadsDoNotLoadLinks() throws Exception {
+        Long userId = this.authService.loadAuthenticatedUser("ProfileUser").getId();
+        this.insertLinks(userId);
+        this.entityManager.clear();
+
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        long allocatedBefore = allocatedBytes();
+        User byUsername = (User) this.authService.loadUserByUsername("ProfileUser");
+        User byEmail = this.userRepository.findByEmail("profile@email.com").orElseThrow();
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        long lookupQueries = statistics.getPrepareStatementCount();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/user")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("ProfileUser"))
+                .andExpect(jsonPath("$.links").doesNotExist())
+                .andExpect(jsonPath("$.password").doesNotExist());
+
+        long profileQueries = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+
+        //findByUsername - запрос, findByEmail - тоже запрос, сущность уже в persistence context
+        assertEquals(2, lookupQueries);
+        assertEquals(1, profileQueries);
+        assertFalse(Hibernate.isInitialized(byUsername.getLinks()));
+        assertFalse(Hibernate.isInitialized(byEmail.getLinks()));
+        assertTrue(allocated < MAX_ALLOCATED_BYTES, "Allocated " + allocated + " bytes");
+
+        //Коллекция по-прежнему доступна при обращении
+        assertEquals(LINKS, byUsername.getLinks().size());
+    }
+
+    private void insertLinks(Long userId) {
+        List<Object[]> rows = new ArrayList<>(LINKS);
+        for (int i = 0; i < LINKS; i++) {
+            rows.add(new Object[]{1_000_000_000L + i, "https://example-" + i + ".com", "profile" + i, userId});
+        }
+
+        this.jdbcTemplate.batchUpdate("""
+                INSERT INTO links (id, old_url, new_url, status, user_id, created_at)
+                VALUES (?, ?, ?, 'PUBLIC', ?, CURRENT_TIMESTAMP)
+                """, rows);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,163 @@
+package com.linker.linker.controller.auth;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.dto.auth.LoginRequestDto;
+import com.linker.linker.dto.auth.RegisterRequestDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class LoginControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String accessToken;
+
+    private String refreshToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RegisterRequestDto requestDto = new RegisterRequestDto(
+                "LoginUser",
+                "login@email.com",
+                "q1w2e3r4"
+        );
+
+        MvcResult result = this.mockMvc.perform(post("/api/v1/auth/registration")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, String> tokens = this.readTokens(result);
+        this.accessToken = tokens.get("accessToken");
+        this.refreshToken = tokens.get("refreshToken");
+    }
+
+    @Test
+    void loginVerifiesPasswordOnce() throws Exception {
+        long before = this.passwordChecks();
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDto("LoginUser", "q1w2e3r4"))))
+                .andExpect(status().isOk());
+
+        assertEquals(1, this.passwordChecks() - before);
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDto("LoginUser", "wrong-password"))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(2, this.passwordChecks() - before);
+    }
+
+    @Test
+    void logoutRevokesTokens() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.refreshToken))))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/link/all")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshTokenIsRotated() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.refreshToken))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String rotated = this.readTokens(result).get("refreshToken");
+        assertNotEquals(this.refreshToken, rotated);
+
+        //Старый refresh токен уже обменян
+        mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.refreshToken))))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", rotated))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void accessTokenCannotBeExchanged() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.accessToken))))
+                .andExpect(status().isUnauthorized());
+
+        //Access токен в слоте refresh при выходе не отзывается
+        mockMvc.perform(post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.accessToken))))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/api/v1/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", this.refreshToken))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refreshTokenIsNotAcceptedAsBearer() throws Exception {
+        mockMvc.perform(get("/api/v1/link/all")
+                        .header("Authorization", "Bearer " + this.refreshToken))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/v1/link/all")
+                        .header("Authorization", "Bearer " + this.accessToken))
+                .andExpect(status().isOk());
+    }
+
+    private long passwordChecks() {
+        return this.meterRegistry.get("security.password.hashing").tag("operation", "matches").timer().count();
+    }
+
+    private Map<String, String> readTokens(MvcResult result) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {});
+    }
+}
@@ -0,0 +1,61 @@
+package com.linker.linker.service.auth.revocation;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TokenRevocationListTest {
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void refreshLoadsOnlyRowsNewerThanWatermark() {
+        Claims seen = this.insert(null);
+        this.tokenRevocationList.refresh();
+        assertTrue(this.tokenRevocationList.isRevoked(seen));
+
+        //Отзыв с другой ноды, сообщение которого не дошло
+        Claims lost = this.insert(null);
+        this.tokenRevocationList.refresh();
+        assertTrue(this.tokenRevocationList.isRevoked(lost));
+
+        //Строка старше водяного знака не перечитывается: вся таблица грузится только при старте
+        Claims old = this.insert(new Timestamp(System.currentTimeMillis() - 3_600_000));
+        this.tokenRevocationList.refresh();
+        assertFalse(this.tokenRevocationList.isRevoked(old));
+    }
+
+    private Claims insert(Timestamp revokedAt) {
+        Claims claims = Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .build();
+
+        if (revokedAt == null) {
+            this.jdbcTemplate.update("INSERT INTO revoked_tokens (jti, expires_at) VALUES (?, ?)",
+                    claims.getId(), new Timestamp(claims.getExpiration().getTime()));
+        } else {
+            this.jdbcTemplate.update("INSERT INTO revoked_tokens (jti, expires_at, revoked_at) VALUES (?, ?, ?)",
+                    claims.getId(), new Timestamp(claims.getExpiration().getTime()), revokedAt);
+        }
+
+        return claims;
+    }
+}
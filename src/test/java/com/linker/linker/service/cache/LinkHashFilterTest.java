@@ -0,0 +1,41 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.entity.Link;
+import com.linker.linker.entity.utils.Status;
+import com.linker.linker.repository.LinkRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LinkHashFilterTest {
+
+    @Autowired
+    private LinkHashFilter linkHashFilter;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Test
+    void catchUpAddsLinksWhoseCreateEventWasLost() {
+        //Ссылку создали на другой ноде, событие о создании до этой ноды не дошло
+        Link link = new Link();
+        link.setOldUrl("https://example-other-node.com");
+        link.setNewUrl("catchUpHash01");
+        link.setStatus(Status.PUBLIC);
+        this.linkRepository.saveAndFlush(link);
+
+        assertFalse(this.linkHashFilter.mightContain("catchUpHash01"));
+
+        this.linkHashFilter.catchUp();
+
+        assertTrue(this.linkHashFilter.mightContain("catchUpHash01"));
+    }
+}
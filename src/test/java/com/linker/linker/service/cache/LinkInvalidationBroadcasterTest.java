@@ -0,0 +1,78 @@
+package com.linker.linker.service.cache;
+
+import com.linker.linker.dto.event.LinkInvalidationBatch;
+import com.linker.linker.dto.event.LinkInvalidationEvent;
+import com.linker.linker.entity.Link;
+import com.linker.linker.entity.utils.Status;
+import com.linker.linker.repository.LinkRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LinkInvalidationBroadcasterTest {
+
+    @Autowired
+    private InMemoryLinkInvalidationTransport transport;
+
+    @Autowired
+    private LinkInvalidationBroadcaster broadcaster;
+
+    @Autowired
+    private LinkCache linkCache;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Test
+    void eventsAreBatchedForOtherNodes() throws Exception {
+        //Подписчик изображает другую ноду
+        BlockingQueue<LinkInvalidationBatch> otherNode = new LinkedBlockingQueue<>();
+        this.transport.subscribe(otherNode::add);
+
+        this.broadcaster.publish("batchHash01", 1L);
+        this.broadcaster.publish("batchHash02", 1L);
+        this.broadcaster.publish("batchHash03", 2L);
+
+        LinkInvalidationBatch batch = otherNode.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(batch);
+        assertEquals(
+                List.of("batchHash01", "batchHash02", "batchHash03"),
+                batch.getEvents().stream().map(LinkInvalidationEvent::getHash).toList()
+        );
+    }
+
+    @Test
+    void remoteChangeEvictsStaleEntry() {
+        Link link = new Link();
+        link.setOldUrl("https://example-node-a.com");
+        link.setNewUrl("remoteHash01");
+        link.setStatus(Status.PUBLIC);
+        link = this.linkRepository.saveAndFlush(link);
+
+        assertEquals("https://example-node-a.com", this.linkCache.find("remoteHash01").orElseThrow().getOldUrl());
+
+        //Ссылку изменили на другой ноде
+        link.setOldUrl("https://example-node-b.com");
+        link = this.linkRepository.saveAndFlush(link);
+
+        //Событие со старой версией не трогает кэш
+        this.transport.send(new LinkInvalidationBatch(List.of(new LinkInvalidationEvent("remoteHash01", 0L))));
+        assertEquals("https://example-node-a.com", this.linkCache.find("remoteHash01").orElseThrow().getOldUrl());
+
+        this.transport.send(new LinkInvalidationBatch(List.of(new LinkInvalidationEvent("remoteHash01", link.getVersion()))));
+        assertEquals("https://example-node-b.com", this.linkCache.find("remoteHash01").orElseThrow().getOldUrl());
+    }
+}
@@ -0,0 +1,51 @@
+package com.linker.linker.service.click;
+
+import com.linker.linker.entity.Link;
+import com.linker.linker.entity.utils.Status;
+import com.linker.linker.repository.LinkRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ClickEventWriterTest {
+
+    @Autowired
+    private ClickEventWriter clickEventWriter;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void clickOnDeletedLinkDoesNotDropBatch() {
+        Link link = new Link();
+        link.setOldUrl("https://example-clicks.com");
+        link.setNewUrl("writerHash01");
+        link.setStatus(Status.PUBLIC);
+        link = this.linkRepository.saveAndFlush(link);
+
+        long now = System.currentTimeMillis();
+        this.clickEventWriter.write(List.of(
+                new ClickEvent(link.getId(), now, null, 1),
+                //Ссылку уже удалили, а клик по ней еще лежал в буфере
+                new ClickEvent(Long.MAX_VALUE, now, null, 2),
+                new ClickEvent(link.getId(), now, "https://referrer.com", 3)
+        ));
+
+        assertEquals(2, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM link_clicks WHERE link_id = ?", Integer.class, link.getId()
+        ));
+    }
+}
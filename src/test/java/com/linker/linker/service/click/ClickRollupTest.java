@@ -0,0 +1,54 @@
+package com.linker.linker.service.click;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ClickRollupTest {
+
+    //Ссылки нет в бд: при сбросе корзины отбрасываются, series читает их из памяти
+    private static final long LINK_ID = -8L;
+
+    @Autowired
+    private ClickRollup clickRollup;
+
+    @Test
+    void repeatedLocalHourStaysInSeparateBuckets() {
+        //26.10.2025 в Берлине 02:30 наступает дважды: сначала CEST, затем CET
+        long firstPass = Instant.parse("2025-10-26T00:30:00Z").toEpochMilli();
+        long secondPass = Instant.parse("2025-10-26T01:30:00Z").toEpochMilli();
+
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        try {
+            this.clickRollup.add(LINK_ID, firstPass);
+            this.clickRollup.add(LINK_ID, secondPass);
+            this.clickRollup.add(LINK_ID, secondPass);
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+
+        NavigableMap<LocalDateTime, Long> hours = this.clickRollup.series(
+                LINK_ID,
+                ClickGranularity.HOUR,
+                LocalDateTime.parse("2025-10-26T00:00:00"),
+                LocalDateTime.parse("2025-10-26T02:00:00")
+        );
+
+        assertEquals(Map.of(
+                LocalDateTime.parse("2025-10-26T00:00:00"), 1L,
+                LocalDateTime.parse("2025-10-26T01:00:00"), 2L
+        ), hours);
+    }
+}
@@ -0,0 +1,72 @@
+package com.linker.linker.service.code;
+
+import com.linker.linker.handler.FeistelPermutation;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeistelShortCodeGeneratorTest {
+    private static final String KEY = "test-key";
+
+    @Test
+    void permutationIsReversibleOnRandomInputs() {
+        Random random = new Random(42);
+
+        for (int bits : new int[]{34, 40, 46}) {
+            FeistelPermutation permutation = new FeistelPermutation(bits, KEY);
+            long domain = 1L << bits;
+
+            for (int i = 0; i < 100_000; i++) {
+                long value = random.nextLong(domain);
+                long permuted = permutation.permute(value);
+
+                assertTrue(permuted >= 0 && permuted < domain);
+                assertEquals(value, permutation.inverse(permuted));
+            }
+        }
+    }
+
+    @Test
+    void sequentialNumbersGiveUniqueNonSequentialCodes() {
+        AtomicLong sequence = new AtomicLong();
+        FeistelShortCodeGenerator generator = new FeistelShortCodeGenerator(
+                KEY, () -> sequence.getAndAdd(FeistelShortCodeGenerator.BLOCK_SIZE)
+        );
+
+        Set<String> codes = new HashSet<>();
+        String previous = null;
+        int adjacentPrefixMatches = 0;
+
+        for (int i = 0; i < 500_000; i++) {
+            String code = generator.next();
+
+            assertEquals(6, code.length());
+            assertTrue(codes.add(code), "duplicate code " + code);
+
+            if (previous != null && previous.regionMatches(0, code, 0, 4)) {
+                adjacentPrefixMatches++;
+            }
+            previous = code;
+        }
+
+        //У соседних номеров общий префикс из 4 символов должен встречаться не чаще случайного (~1 / 62^4)
+        assertTrue(adjacentPrefixMatches < 10, "codes look sequential: " + adjacentPrefixMatches);
+    }
+
+    @Test
+    void codeLengthGrowsOnlyAtTierBoundaries() {
+        FeistelShortCodeGenerator generator = new FeistelShortCodeGenerator(KEY, () -> 0);
+        long sixCharCodes = 1L << 34;
+        long sevenCharCodes = 1L << 40;
+
+        assertEquals(6, generator.encode(sixCharCodes - 1).length());
+        assertEquals(7, generator.encode(sixCharCodes).length());
+        assertEquals(7, generator.encode(sixCharCodes + sevenCharCodes - 1).length());
+        assertEquals(8, generator.encode(sixCharCodes + sevenCharCodes).length());
+    }
+}
@@ -0,0 +1,40 @@
+package com.linker.linker.service.code;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ShortCodePoolTest {
+
+    @Autowired
+    private ShortCodePool shortCodePool;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void codesAreUniqueAndReserved() {
+        //Больше одной пачки, чтобы пул успел пополниться
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 2500; i++) {
+            codes.add(this.shortCodePool.next());
+        }
+
+        assertEquals(2500, codes.size());
+
+        for (String code : codes.stream().limit(50).toList()) {
+            assertEquals(1, this.jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM short_code_pool WHERE code = ?", Integer.class, code
+            ));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.linker.linker.service.redirect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrivateCodeAttemptLimiterTest {
+
+    @Test
+    void attemptsOverLimitAreRejectedUntilRefill() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        //Время двигаем вручную, чтобы паузы GC и медленная машина не влияли на результат
+        AtomicLong now = new AtomicLong();
+        PrivateCodeAttemptLimiter limiter = new PrivateCodeAttemptLimiter(registry, 3, Duration.ofMinutes(1), 1000, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("hash", "10.0.0.1"));
+        }
+
+        long retryAfter = limiter.tryAcquire("hash", "10.0.0.1");
+        assertEquals(TimeUnit.SECONDS.toNanos(20), retryAfter);
+        //Другой адрес и другая ссылка считаются отдельно
+        assertEquals(0, limiter.tryAcquire("hash", "10.0.0.2"));
+        assertEquals(0, limiter.tryAcquire("other", "10.0.0.1"));
+
+        now.addAndGet(retryAfter - 1);
+        assertTrue(limiter.tryAcquire("hash", "10.0.0.1") > 0);
+
+        now.incrementAndGet();
+        assertEquals(0, limiter.tryAcquire("hash", "10.0.0.1"));
+        assertEquals(2, registry.get("link.private.attempts.rejected").counter().count());
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedLimit() throws Exception {
+        PrivateCodeAttemptLimiter limiter = new PrivateCodeAttemptLimiter(new SimpleMeterRegistry(), 50, Duration.ofHours(1), 1000);
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.tryAcquire("hash", "10.0.0.1") == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(50, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void memoryIsBoundedUnderKeyChurn() throws Exception {
+        PrivateCodeAttemptLimiter limiter = new PrivateCodeAttemptLimiter(new SimpleMeterRegistry(), 5, Duration.ofHours(1), 1000);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("hash", "10.0.0.1");
+        }
+
+        //Поток разовых ключей с разных адресов, между ними продолжается перебор с одного адреса
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        limiter.tryAcquire("hash-" + thread + "-" + i, "10.1." + thread + "." + i);
+                        if (i % 100 == 0) {
+                            limiter.tryAcquire("hash", "10.0.0.1");
+                        }
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(limiter.size() <= 1000, String.valueOf(limiter.size()));
+        assertTrue(limiter.tryAcquire("hash", "10.0.0.1") > 0);
+    }
+}
@@ -0,0 +1,137 @@
+package com.linker.linker.service.redirect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linker.linker.dto.auth.RegisterRequestDto;
+import com.linker.linker.dto.request.LinkDtoRequest;
+import com.linker.linker.entity.utils.RedirectType;
+import com.linker.linker.entity.utils.Status;
+import com.linker.linker.repository.LinkRepository;
+import com.linker.linker.service.click.ClickCounter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Без @Transactional: сервер редиректов читает ссылки из своих потоков
+@SpringBootTest(properties = {
+        "link.redirect.server.enabled=true",
+        "link.redirect.server.port=0",
+        "link.redirect.server.fallback-url=http://main.test"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RedirectServerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RedirectServer redirectServer;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private ClickCounter clickCounter;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    private String accessToken;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        RegisterRequestDto requestDto = new RegisterRequestDto(
+                "RedirectServerUser",
+                "redirect-server@email.com",
+                "q1w2e3r4"
+        );
+
+        MvcResult result = this.mockMvc.perform(post("/api/v1/auth/registration")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        this.accessToken = objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    @Test
+    void publicLinkIsRedirected() throws Exception {
+        String hash = this.createLink(new LinkDtoRequest("https://example-server.com", Status.PUBLIC, null, null));
+        Long linkId = this.linkRepository.findByHash(hash).orElseThrow().getId();
+
+        HttpResponse<Void> response = this.get("/cc/" + hash);
+
+        assertEquals(302, response.statusCode());
+        assertEquals("https://example-server.com", response.headers().firstValue("Location").orElseThrow());
+        assertEquals(1, this.clickCounter.pending(linkId));
+    }
+
+    @Test
+    void redirectUsesLinkPolicy() throws Exception {
+        String hash = this.createLink(new LinkDtoRequest(
+                "https://example-server-permanent.com", Status.PUBLIC, null, null, RedirectType.PERMANENT, 600L
+        ));
+
+        HttpResponse<Void> response = this.get("/cc/" + hash);
+
+        assertEquals(301, response.statusCode());
+        assertEquals("max-age=600, public", response.headers().firstValue("Cache-Control").orElseThrow());
+    }
+
+    @Test
+    void privateLinkFallsBackToMainApp() throws Exception {
+        String hash = this.createLink(new LinkDtoRequest("https://example-private.com", Status.PRIVATE, "12345", null));
+
+        HttpResponse<Void> response = this.get("/cc/" + hash);
+
+        assertEquals(302, response.statusCode());
+        assertEquals("http://main.test/cc/" + hash, response.headers().firstValue("Location").orElseThrow());
+    }
+
+    @Test
+    void unknownHashReturnsNotFound() throws Exception {
+        assertEquals(404, this.get("/cc/unknownHash2").statusCode());
+        assertEquals(404, this.get("/cc/").statusCode());
+    }
+
+    private HttpResponse<Void> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.redirectServer.getPort() + path))
+                .GET()
+                .build();
+
+        return this.client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private String createLink(LinkDtoRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/link")
+                        .header("Authorization", "Bearer " + this.accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("link").asText();
+    }
+}